@@ -2,7 +2,8 @@ package frc.molib;
 
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import frc.molib.dashboard.Entry;
+import frc.molib.dashboard.DoubleArrayEntry;
+import frc.molib.dashboard.DoubleEntry;
 
 /**
  * Interface for the Limelight table on NetworkTables
@@ -37,34 +38,42 @@ public final class Limelight {
 	
 	private static final NetworkTable tblLimelight = NetworkTableInstance.getDefault().getTable("limelight");
 
-	private static final Entry<Double>	entHasTarget = new Entry<Double>(tblLimelight, "tv");
-	private static final Entry<Double> 	entPosX = new Entry<Double>(tblLimelight, "tx");
-	private static final Entry<Double> 	entPosY = new Entry<Double>(tblLimelight, "ty");
-	private static final Entry<Double> 	entWidth = new Entry<Double>(tblLimelight, "thor");
-	private static final Entry<Double> 	entHeight = new Entry<Double>(tblLimelight, "tver");
-	private static final Entry<Double> 	entArea = new Entry<Double>(tblLimelight, "ta");
+	private static final DoubleEntry	entHasTarget = new DoubleEntry(tblLimelight, "tv");
+	private static final DoubleEntry 	entPosX = new DoubleEntry(tblLimelight, "tx");
+	private static final DoubleEntry 	entPosY = new DoubleEntry(tblLimelight, "ty");
+	private static final DoubleEntry 	entWidth = new DoubleEntry(tblLimelight, "thor");
+	private static final DoubleEntry 	entHeight = new DoubleEntry(tblLimelight, "tver");
+	private static final DoubleEntry 	entArea = new DoubleEntry(tblLimelight, "ta");
+	private static final DoubleArrayEntry entBotPose = new DoubleArrayEntry(tblLimelight, "botpose_wpiblue");
 	
-	private static final Entry<Integer>	entLEDMode = new Entry<Integer>(tblLimelight, "ledMode");
-	private static final Entry<Integer>	entCamMode = new Entry<Integer>(tblLimelight, "camMode");
-	private static final Entry<Integer>	entPipeline = new Entry<Integer>(tblLimelight, "pipeline");
-	private static final Entry<Integer>	entStreamMode = new Entry<Integer>(tblLimelight, "stream");
+	//The Limelight publishes its settings as doubles
+	private static final DoubleEntry	entLEDMode = new DoubleEntry(tblLimelight, "ledMode");
+	private static final DoubleEntry	entCamMode = new DoubleEntry(tblLimelight, "camMode");
+	private static final DoubleEntry	entPipeline = new DoubleEntry(tblLimelight, "pipeline");
+	private static final DoubleEntry	entStreamMode = new DoubleEntry(tblLimelight, "stream");
 
 	private Limelight() {}
 
-	public static boolean hasTarget() { return entHasTarget.get() == 1; }
-	public static double getPosX() { return entPosX.get(); }
-	public static double getPosY() { return entPosY.get(); }
-	public static double getWidth() { return entWidth.get(); }
-	public static double getHeight() { return entHeight.get(); }
-	public static double getArea() { return entArea.get(); }
+	public static boolean hasTarget() { return entHasTarget.getAsDouble() == 1.0; }
+	public static double getPosX() { return entPosX.getAsDouble(); }
+	public static double getPosY() { return entPosY.getAsDouble(); }
+	public static double getWidth() { return entWidth.getAsDouble(); }
+	public static double getHeight() { return entHeight.getAsDouble(); }
+	public static double getArea() { return entArea.getAsDouble(); }
+
+	/**
+	 * Get the robot's field pose as seen by the Limelight, with the origin at the blue alliance corner
+	 * @return [x, y, z, roll, pitch, yaw, total latency] in meters, degrees, and milliseconds; empty if unavailable
+	 */
+	public static double[] getBotPose() { return entBotPose.get(); }
 	
 	public static void setLEDMode(LEDMode mode) { entLEDMode.set(mode.value); }
 	public static void setCamMode(CamMode mode) { entCamMode.set(mode.value); }
 	public static void setPipeline(int pipeline) { entPipeline.set(pipeline); }
 	public static void setStream(StreamMode mode) { entStreamMode.set(mode.value); }
 
-	public static LEDMode getLEDMode() { return LEDMode.values()[entLEDMode.get()]; }
-	public static CamMode getCamMode() { return CamMode.values()[entCamMode.get()]; }
-	public static int getPipeline() { return entPipeline.get(); }
-	public static StreamMode getStreamMode() { return StreamMode.values()[entStreamMode.get()]; }	
+	public static LEDMode getLEDMode() { return LEDMode.values()[(int)entLEDMode.getAsDouble()]; }
+	public static CamMode getCamMode() { return CamMode.values()[(int)entCamMode.getAsDouble()]; }
+	public static int getPipeline() { return (int)entPipeline.getAsDouble(); }
+	public static StreamMode getStreamMode() { return StreamMode.values()[(int)entStreamMode.getAsDouble()]; }	
 }
\ No newline at end of file
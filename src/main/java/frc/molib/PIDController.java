@@ -1,6 +1,7 @@
 package frc.molib;
 
 import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.math.MathUtil;
 
@@ -52,6 +53,50 @@ public class PIDController extends edu.wpi.first.math.controller.PIDController {
 		mMaxOutputLimit = max;
 	}
 
+	/**
+	 * Configure the controller to treat the input range as continuous, 
+	 * so the error always takes the shortest way around, e.g. for headings in degrees
+	 * @param min The minimum input value
+	 * @param max The maximum input value, considered the same point as the minimum
+	 */
+	public void configContinuousInput(double min, double max) {
+		enableContinuousInput(min, max);
+	}
+
+	/**
+	 * Configure how close to the setpoint the error must be before the integrator accumulates.
+	 * Outside of this zone the integrator is cleared, preventing windup during large moves.
+	 * @param zone Maximum absolute error for the integrator to be active
+	 */
+	public void configIntegratorZone(double zone) {
+		setIZone(zone);
+	}
+
+	/**
+	 * Load gains stored in Preferences, keeping the current gain for any that haven't been stored
+	 * @param key Preferences key prefix, e.g. "Chassis/Distance"
+	 */
+	public void loadGains(String key) {
+		setPID(
+			Preferences.getDouble(key + " kP", getP()),
+			Preferences.getDouble(key + " kI", getI()),
+			Preferences.getDouble(key + " kD", getD()));
+	}
+
+	/**
+	 * Apply new gains and store them in Preferences, so {@link #loadGains(String)} picks them up at the next startup
+	 * @param key Preferences key prefix, e.g. "Chassis/Distance"
+	 * @param Kp The proportional coefficient
+	 * @param Ki The integral coefficient
+	 * @param Kd The derivative coefficient
+	 */
+	public void saveGains(String key, double Kp, double Ki, double Kd) {
+		setPID(Kp, Ki, Kd);
+		Preferences.setDouble(key + " kP", Kp);
+		Preferences.setDouble(key + " kI", Ki);
+		Preferences.setDouble(key + " kD", Kd);
+	}
+
 	/**
 	 * Returns the next output of the PID controller, 
 	 * clamped between the minimum and maximum outputs
@@ -0,0 +1,88 @@
+package frc.molib.auto;
+
+/**
+ * A {@link Step} made of other steps, recording how each of them ended during its last run.
+ * <p>Child times are kept relative to the start of the group, so the {@link RoutineRunner} can flatten a group's
+ * children into its own stage telemetry once the group ends. Nothing is allocated once constructed.</p>
+ */
+abstract class GroupStep extends Step {
+	protected final Step[] mSteps;
+
+	//Child Telemetry, seconds since the group began, filled in as each child ends
+	private final double[] mChildStartTime;
+	private final double[] mChildEndTime;
+	private final double[] mChildError;
+	private final Outcome[] mChildOutcome;
+	private double mLastElapsed = 0.0;
+
+	/**
+	 * Constructor
+	 * @param description	Description of the group, used when logging transitions
+	 * @param timeout		Time in seconds before the whole group is abandoned, or {@link Step#NO_TIMEOUT}
+	 * @param steps			Steps making up the group
+	 */
+	protected GroupStep(String description, double timeout, Step[] steps) {
+		super(description, timeout);
+		mSteps = steps.clone();
+		mChildStartTime = new double[steps.length];
+		mChildEndTime = new double[steps.length];
+		mChildError = new double[steps.length];
+		mChildOutcome = new Outcome[steps.length];
+	}
+
+	/** Forget every child's result from the last run, call from {@link #start()} */
+	protected void resetChildren() {
+		for(int index = 0; index < mSteps.length; index++) mChildOutcome[index] = null;
+		mLastElapsed = 0.0;
+	}
+
+	/**
+	 * Start a child, recording when it began
+	 * @param index		Index of the child
+	 * @param elapsed	Time in seconds since the group began
+	 */
+	protected void startChild(int index, double elapsed) {
+		mChildStartTime[index] = elapsed;
+		mLastElapsed = elapsed;
+		mSteps[index].start();
+	}
+
+	/**
+	 * Record and end a child, reading its error before it releases its controller
+	 * @param index		Index of the child
+	 * @param elapsed	Time in seconds since the group began
+	 * @param outcome	How the child ended
+	 */
+	protected void endChild(int index, double elapsed, Outcome outcome) {
+		mChildEndTime[index] = elapsed;
+		mChildError[index] = mSteps[index].getError();
+		mChildOutcome[index] = outcome;
+		mSteps[index].end(outcome != Outcome.DONE);
+	}
+
+	/**
+	 * Note the latest time the group was checked, used when the group ends its children without being given the time
+	 * @param elapsed Time in seconds since the group began
+	 */
+	protected void updateElapsed(double elapsed) {
+		mLastElapsed = elapsed;
+	}
+
+	/** @return Time in seconds since the group began, as of the last check */
+	protected double getLastElapsed() { return mLastElapsed; }
+
+	int getChildCount() { return mSteps.length; }
+
+	Step getChild(int index) { return mSteps[index]; }
+
+	/** @return Seconds after the group began that the child started */
+	double getChildStartTime(int index) { return mChildStartTime[index]; }
+
+	/** @return Seconds after the group began that the child ended */
+	double getChildEndTime(int index) { return mChildEndTime[index]; }
+
+	double getChildError(int index) { return mChildError[index]; }
+
+	/** @return How the child ended in the last run, or null if it never ran */
+	Outcome getChildOutcome(int index) { return mChildOutcome[index]; }
+}
@@ -0,0 +1,85 @@
+package frc.molib.auto;
+
+/**
+ * Runs several {@link Step}s at once, for subsystems that can act independently.
+ * <p>A parallel group ends once every step has ended, a race group ends as soon as any step ends,
+ * cutting the rest short. Each step still ends on its own timeout, and the group's timeout cuts every step short.</p>
+ */
+public class ParallelStep extends GroupStep {
+	private final boolean[] mIsEnded;
+	private final boolean mIsRace;
+
+	private ParallelStep(String description, double timeout, boolean isRace, Step[] steps) {
+		super(description, timeout, steps);
+		mIsEnded = new boolean[steps.length];
+		mIsRace = isRace;
+	}
+
+	/**
+	 * Create a group that ends once every step has ended
+	 * @param timeout	Time in seconds before the whole group is abandoned, or {@link Step#NO_TIMEOUT}
+	 * @param steps		Steps to run together
+	 * @return Parallel group
+	 */
+	public static ParallelStep all(double timeout, Step... steps) {
+		return new ParallelStep(describe("Parallel", steps), timeout, false, steps);
+	}
+
+	/**
+	 * Create a group that ends as soon as any step ends
+	 * @param timeout	Time in seconds before the whole group is abandoned, or {@link Step#NO_TIMEOUT}
+	 * @param steps		Steps to run together
+	 * @return Race group
+	 */
+	public static ParallelStep race(double timeout, Step... steps) {
+		return new ParallelStep(describe("Race", steps), timeout, true, steps);
+	}
+
+	private static String describe(String type, Step[] steps) {
+		StringBuilder description = new StringBuilder(type).append(" [");
+		for(int index = 0; index < steps.length; index++) {
+			if(index > 0) description.append(", ");
+			description.append(steps[index].toString());
+		}
+		return description.append("]").toString();
+	}
+
+	@Override
+	public void start() {
+		resetChildren();
+		for(int index = 0; index < mSteps.length; index++) {
+			mIsEnded[index] = false;
+			startChild(index, 0.0);
+		}
+	}
+
+	@Override
+	public boolean isFinished(double elapsed) {
+		updateElapsed(elapsed);
+		boolean isAllEnded = true;
+		for(int index = 0; index < mSteps.length; index++) {
+			if(mIsEnded[index]) continue;
+
+			Step step = mSteps[index];
+			boolean isTimedOut = elapsed > step.getTimeout();
+			if(isTimedOut || step.isFinished(elapsed)) {
+				endChild(index, elapsed, isTimedOut ? Outcome.TIMED_OUT : Outcome.DONE);
+				mIsEnded[index] = true;
+				if(mIsRace) return true;
+			} else {
+				isAllEnded = false;
+			}
+		}
+		return isAllEnded;
+	}
+
+	@Override
+	public void end(boolean isTimedOut) {
+		//Anything still running was cut short by the group
+		for(int index = 0; index < mSteps.length; index++) {
+			if(mIsEnded[index]) continue;
+			endChild(index, getLastElapsed(), Outcome.INTERRUPTED);
+			mIsEnded[index] = true;
+		}
+	}
+}
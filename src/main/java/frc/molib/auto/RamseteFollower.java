@@ -0,0 +1,121 @@
+package frc.molib.auto;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Ramsete trajectory follower for a differential drive.
+ * <p>Tracks a {@link TimedPath} by correcting the path's velocity and turn rate for the robot's position, heading and
+ * cross-track error, using the nonlinear Ramsete control law. Everything is in meters, radians and seconds,
+ * with heading counter-clockwise positive.</p>
+ * <p>Call {@link #calculate(double, double, double, double)} once per loop, then read the wheel speeds from
+ * {@link #getLeft()} and {@link #getRight()}. Nothing is allocated once constructed.</p>
+ */
+public class RamseteFollower {
+	//Configuration
+	private final double mB;
+	private final double mZeta;
+	private final double mTrackWidth;
+
+	//Following State
+	private TimedPath mPath = null;
+
+	//Outputs, wheel speeds in meters per second
+	private double mLeft = 0.0;
+	private double mRight = 0.0;
+	private double mPositionError = 0.0;
+
+	/**
+	 * Constructor
+	 * @param b				Aggressiveness of the correction, 2.0 is a good default, in rad²/m²
+	 * @param zeta			Damping of the correction, 0.7 is a good default
+	 * @param trackWidth	Distance between the left and right wheels in meters
+	 */
+	public RamseteFollower(double b, double zeta, double trackWidth) {
+		mB = b;
+		mZeta = zeta;
+		mTrackWidth = trackWidth;
+	}
+
+	/**
+	 * Begin following a trajectory
+	 * @param path Trajectory to follow
+	 */
+	public void start(TimedPath path) {
+		mPath = path;
+		mLeft = 0.0;
+		mRight = 0.0;
+	}
+
+	/** Stop following, zeroing the outputs */
+	public void stop() {
+		mPath = null;
+		mLeft = 0.0;
+		mRight = 0.0;
+	}
+
+	public boolean isRunning() { return mPath != null; }
+
+	/**
+	 * Get whether the whole trajectory has been run
+	 * @param time Time since the trajectory started in seconds
+	 * @return True once past the end of the trajectory, or if none is being followed
+	 */
+	public boolean isFinished(double time) {
+		return mPath == null || time >= mPath.getTotalTime();
+	}
+
+	/**
+	 * Calculate wheel speeds from the robot's current pose
+	 * @param x			Field X position in meters
+	 * @param y			Field Y position in meters
+	 * @param heading	Heading in radians, counter-clockwise positive
+	 * @param time		Time since the trajectory started in seconds
+	 */
+	public void calculate(double x, double y, double heading, double time) {
+		if(mPath == null) return;
+
+		//Interpolate the desired state, holding the final state once the trajectory is over
+		int index = mPath.findSegment(time);
+		double span = mPath.getTime(index + 1) - mPath.getTime(index);
+		double fraction = span > 0.0 ? MathUtil.clamp((time - mPath.getTime(index)) / span, 0.0, 1.0) : 1.0;
+		double desiredX = interpolate(mPath.getX(index), mPath.getX(index + 1), fraction);
+		double desiredY = interpolate(mPath.getY(index), mPath.getY(index + 1), fraction);
+		double desiredHeading = mPath.getHeading(index) + (MathUtil.angleModulus(mPath.getHeading(index + 1) - mPath.getHeading(index)) * fraction);
+		double desiredVelocity = interpolate(mPath.getVelocity(index), mPath.getVelocity(index + 1), fraction);
+		double desiredTurnRate = desiredVelocity * interpolate(mPath.getCurvature(index), mPath.getCurvature(index + 1), fraction);
+
+		//Error in the robot's frame
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		double errorX = (cos * (desiredX - x)) + (sin * (desiredY - y));
+		double errorY = (-sin * (desiredX - x)) + (cos * (desiredY - y));
+		double errorHeading = MathUtil.angleModulus(desiredHeading - heading);
+		mPositionError = Math.hypot(errorX, errorY);
+
+		//Ramsete control law
+		double k = 2.0 * mZeta * Math.sqrt((desiredTurnRate * desiredTurnRate) + (mB * desiredVelocity * desiredVelocity));
+		double velocity = (desiredVelocity * Math.cos(errorHeading)) + (k * errorX);
+		double turnRate = desiredTurnRate + (k * errorHeading) + (mB * desiredVelocity * sinc(errorHeading) * errorY);
+
+		mLeft = velocity - (turnRate * mTrackWidth / 2.0);
+		mRight = velocity + (turnRate * mTrackWidth / 2.0);
+	}
+
+	/** @return Left wheel speed in meters per second from the last calculation */
+	public double getLeft() { return mLeft; }
+
+	/** @return Right wheel speed in meters per second from the last calculation */
+	public double getRight() { return mRight; }
+
+	/** @return Distance in meters between the robot and where it should be, from the last calculation */
+	public double getPositionError() { return mPositionError; }
+
+	private static double interpolate(double start, double end, double fraction) {
+		return start + ((end - start) * fraction);
+	}
+
+	private static double sinc(double value) {
+		if(Math.abs(value) < 1.0e-9) return 1.0 - ((value * value) / 6.0);
+		else return Math.sin(value) / value;
+	}
+}
@@ -0,0 +1,30 @@
+package frc.molib.auto;
+
+/** An immutable, ordered list of {@link Step}s making up an autonomous routine */
+public class Routine {
+	private final String mName;
+	private final Step[] mSteps;
+
+	/**
+	 * Constructor
+	 * @param name	Name of the routine, used when logging
+	 * @param steps	Steps to run in order
+	 */
+	public Routine(String name, Step... steps) {
+		mName = name;
+		mSteps = steps.clone();
+	}
+
+	public String getName() { return mName; }
+
+	public int size() { return mSteps.length; }
+
+	/**
+	 * Get a step of the routine
+	 * @param index Position of the step, starting at 0
+	 * @return Step at that position
+	 */
+	public Step getStep(int index) { return mSteps[index]; }
+
+	@Override public String toString() { return mName; }
+}
@@ -0,0 +1,290 @@
+package frc.molib.auto;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.Timer;
+import frc.molib.auto.Step.Outcome;
+import frc.molib.dashboard.Entry;
+import frc.molib.utilities.Console;
+
+/**
+ * Runs a {@link Routine} one step at a time.
+ * <p>Call {@link #periodic()} once per loop. Whenever a step finishes the next one is started and checked
+ * in the same loop, so instant steps never cost a loop of their own. Each transition is logged.</p>
+ * <p>Every stage's start and end time, whether it ended on its condition, its timeout or was interrupted, and its
+ * controller error at exit are recorded into fixed arrays as the routine runs. The children of a {@link ParallelStep}
+ * or {@link SequentialStep} are recorded as stages of their own, straight after their group, so a timeout inside a group
+ * isn't hidden by it. A summary is logged and published once the routine completes or is stopped.</p>
+ */
+public class RoutineRunner {
+	/** Most stages recorded per routine, including group children. Later stages still run but aren't recorded */
+	public static final int MAX_STAGES = 64;
+
+	private Routine mRoutine = null;
+	private int mStepIndex = 0;
+	private boolean mIsStepActive = false;
+	private double mRoutineStartTime = 0.0;
+	private double mStepStartTime = 0.0;
+	private double mCompletionTime = Double.NaN;
+	private double mLastEndTime = 0.0;
+
+	//Stage Telemetry, FPGA times in seconds, filled in as each stage ends
+	private final Step[] mStage = new Step[MAX_STAGES];
+	private final int[] mStageDepth = new int[MAX_STAGES];
+	private final double[] mStageStartTime = new double[MAX_STAGES];
+	private final double[] mStageEndTime = new double[MAX_STAGES];
+	private final double[] mStageError = new double[MAX_STAGES];
+	private final Outcome[] mStageOutcome = new Outcome[MAX_STAGES];
+	private int mStageCount = 0;
+
+	//Dashboard Values, published once per routine
+	private final Entry<String> entRoutine;
+	private final Entry<Double> entRoutineTime;
+	private final Entry<Double> entTimeoutCount;
+	private final Entry<String[]> entStageNames;
+	private final Entry<double[]> entStageDurations;
+	private final Entry<boolean[]> entStageTimedOut;
+	private final Entry<String[]> entStageOutcomes;
+	private final Entry<double[]> entStageErrors;
+
+	/**
+	 * Constructor
+	 * @param parentTable Parent NetworkTable to publish each routine's stage summary under
+	 */
+	public RoutineRunner(NetworkTable parentTable) {
+		entRoutine = new Entry<String>(parentTable, "Last Routine");
+		entRoutineTime = new Entry<Double>(parentTable, "Last Routine Time");
+		entTimeoutCount = new Entry<Double>(parentTable, "Stage Timeouts");
+		entStageNames = new Entry<String[]>(parentTable, "Stage Names");
+		entStageDurations = new Entry<double[]>(parentTable, "Stage Durations");
+		entStageTimedOut = new Entry<boolean[]>(parentTable, "Stage Timed Out");
+		entStageOutcomes = new Entry<String[]>(parentTable, "Stage Outcomes");
+		entStageErrors = new Entry<double[]>(parentTable, "Stage Errors");
+	}
+
+	/**
+	 * Begin running a routine from its first step, abandoning any routine already running
+	 * @param routine Routine to run
+	 */
+	public void start(Routine routine) {
+		stop();
+		mRoutine = routine;
+		mStepIndex = 0;
+		mIsStepActive = false;
+		mRoutineStartTime = Timer.getFPGATimestamp();
+		mCompletionTime = Double.NaN;
+		mStageCount = 0;
+		Console.logMsg("Starting Routine \"" + routine.getName() + "\"");
+	}
+
+	/** Abandon the running routine, ending its active step, which is recorded as interrupted */
+	public void stop() {
+		if(mRoutine != null && mIsStepActive) {
+			endStage(mRoutine.getStep(mStepIndex), Timer.getFPGATimestamp(), Outcome.INTERRUPTED);
+			Console.logMsg("Routine \"" + mRoutine.getName() + "\" stopped during step " + (mStepIndex + 1));
+			publishSummary();
+		}
+		mIsStepActive = false;
+		mRoutine = null;
+	}
+
+	/**
+	 * Get whether a routine has run through all of its steps, or none is running
+	 * @return True if there is nothing left to run
+	 */
+	public boolean isFinished() {
+		return mRoutine == null || mStepIndex >= mRoutine.size();
+	}
+
+	/**
+	 * Get the routine being run
+	 * @return Routine, which may have finished, or null if none was started or it was stopped
+	 */
+	public Routine getRoutine() {
+		return mRoutine;
+	}
+
+	/**
+	 * Get how long the routine took to run all of its steps
+	 * @return Time in seconds, or NaN if it hasn't completed
+	 */
+	public double getCompletionTime() {
+		return mCompletionTime;
+	}
+
+	/**
+	 * Get the number of stages recorded for the current or last routine
+	 * @return Number of stages that have ended, including group children, up to {@link #MAX_STAGES}
+	 */
+	public int getStageCount() {
+		return mStageCount;
+	}
+
+	/**
+	 * Get a recorded stage's step
+	 * @param index Index of the stage, starting at 0
+	 * @return Step of the routine, or a child of a group
+	 */
+	public Step getStage(int index) {
+		return mStage[index];
+	}
+
+	/**
+	 * Get how deeply a recorded stage is nested in groups
+	 * @param index Index of the stage, starting at 0
+	 * @return 0 for a step of the routine, 1 for a child of one of its groups, and so on
+	 */
+	public int getStageDepth(int index) {
+		return mStageDepth[index];
+	}
+
+	/**
+	 * Get how long a recorded stage ran
+	 * @param index Index of the stage, starting at 0
+	 * @return Duration in seconds
+	 */
+	public double getStageDuration(int index) {
+		return mStageEndTime[index] - mStageStartTime[index];
+	}
+
+	/**
+	 * Get a recorded stage's controller error when it ended
+	 * @param index Index of the stage, starting at 0
+	 * @return Error in the step's own units, or NaN if it has no controller
+	 */
+	public double getStageError(int index) {
+		return mStageError[index];
+	}
+
+	/**
+	 * Get how a recorded stage ended
+	 * @param index Index of the stage, starting at 0
+	 * @return On its end condition, its own timeout, or interrupted by its group or the routine being stopped
+	 */
+	public Outcome getStageOutcome(int index) {
+		return mStageOutcome[index];
+	}
+
+	/**
+	 * Get whether a recorded stage ended on its own timeout rather than its end condition
+	 * @param index Index of the stage, starting at 0
+	 * @return True if the stage timed out
+	 */
+	public boolean isStageTimedOut(int index) {
+		return index < mStageCount && mStageOutcome[index] == Outcome.TIMED_OUT;
+	}
+
+	/**
+	 * Get the step currently running
+	 * @return Index of the step, starting at 0, or -1 if nothing is running
+	 */
+	public int getStepIndex() {
+		return isFinished() ? -1 : mStepIndex;
+	}
+
+	/** Call once per loop to advance the routine */
+	public void periodic() {
+		if(isFinished()) return;
+
+		double now = Timer.getFPGATimestamp();
+		while(mStepIndex < mRoutine.size()) {
+			Step step = mRoutine.getStep(mStepIndex);
+
+			if(!mIsStepActive) {
+				Console.logMsg("Step " + (mStepIndex + 1) + "/" + mRoutine.size() + ": " + step.toString() + "...");
+				mStepStartTime = now;
+				mIsStepActive = true;
+				step.start();
+			}
+
+			double elapsed = now - mStepStartTime;
+			boolean isTimedOut = elapsed > step.getTimeout();
+			if(!isTimedOut && !step.isFinished(elapsed)) return;
+
+			endStage(step, now, isTimedOut ? Outcome.TIMED_OUT : Outcome.DONE);
+			Console.logMsg("Step " + (mStepIndex + 1) + (isTimedOut ? " timed out" : " done") + " after " + String.format("%.2f", elapsed) + "s");
+			mIsStepActive = false;
+			mStepIndex++;
+		}
+
+		mCompletionTime = now - mRoutineStartTime;
+		Console.logMsg("Routine \"" + mRoutine.getName() + "\" complete in " + String.format("%.2f", mCompletionTime) + "s");
+		publishSummary();
+	}
+
+	/**
+	 * Record and end the active step, reading its error before it releases its controller.
+	 * A group's children are recorded after it, once ending the group has ended them.
+	 * @param step		Active step
+	 * @param now		Current FPGA time in seconds
+	 * @param outcome	How the step ended
+	 */
+	private void endStage(Step step, double now, Outcome outcome) {
+		double error = step.getError();
+		step.end(outcome != Outcome.DONE);
+
+		mLastEndTime = now;
+		recordStage(step, 0, mStepStartTime, now, error, outcome);
+		if(step instanceof GroupStep) recordChildren((GroupStep)step, 1, mStepStartTime);
+	}
+
+	/**
+	 * Record every child a group ran in its last run, and their children in turn
+	 * @param group		Group that has ended
+	 * @param depth		Nesting depth of the group's children
+	 * @param startTime	FPGA time in seconds the group began
+	 */
+	private void recordChildren(GroupStep group, int depth, double startTime) {
+		for(int index = 0; index < group.getChildCount(); index++) {
+			Outcome outcome = group.getChildOutcome(index);
+			if(outcome == null) continue; //Never reached
+
+			Step child = group.getChild(index);
+			double childStartTime = startTime + group.getChildStartTime(index);
+			recordStage(child, depth, childStartTime, startTime + group.getChildEndTime(index), group.getChildError(index), outcome);
+			if(child instanceof GroupStep) recordChildren((GroupStep)child, depth + 1, childStartTime);
+		}
+	}
+
+	private void recordStage(Step step, int depth, double startTime, double endTime, double error, Outcome outcome) {
+		if(mStageCount >= MAX_STAGES) return;
+		mStage[mStageCount] = step;
+		mStageDepth[mStageCount] = depth;
+		mStageStartTime[mStageCount] = startTime;
+		mStageEndTime[mStageCount] = endTime;
+		mStageError[mStageCount] = error;
+		mStageOutcome[mStageCount] = outcome;
+		mStageCount++;
+	}
+
+	/** Log and publish every recorded stage of the routine, only allocating once it is over */
+	private void publishSummary() {
+		String[] names = new String[mStageCount];
+		String[] outcomes = new String[mStageCount];
+		double[] durations = new double[mStageCount];
+		boolean[] isTimedOut = new boolean[mStageCount];
+		int timeoutCount = 0;
+
+		StringBuilder summary = new StringBuilder("Routine \"" + mRoutine.getName() + "\" stages:");
+		for(int index = 0; index < mStageCount; index++) {
+			names[index] = "  ".repeat(mStageDepth[index]) + mStage[index].toString();
+			outcomes[index] = mStageOutcome[index].toString();
+			durations[index] = getStageDuration(index);
+			isTimedOut[index] = isStageTimedOut(index);
+			if(isTimedOut[index]) timeoutCount++;
+			summary.append(String.format("%n  %2d. %-32s %6.2fs  %-11s  error %s", index + 1, names[index], durations[index],
+				outcomes[index], Double.isNaN(mStageError[index]) ? "-" : String.format("%.2f", mStageError[index])));
+		}
+		Console.logMsg(summary.toString());
+
+		entRoutine.set(mRoutine.getName());
+		entRoutineTime.set(Double.isNaN(mCompletionTime) ? mLastEndTime - mRoutineStartTime : mCompletionTime);
+		entTimeoutCount.set((double)timeoutCount);
+		entStageNames.set(names);
+		entStageDurations.set(durations);
+		entStageTimedOut.set(isTimedOut);
+		entStageOutcomes.set(outcomes);
+		entStageErrors.set(Arrays.copyOf(mStageError, mStageCount));
+	}
+}
@@ -0,0 +1,66 @@
+package frc.molib.auto;
+
+/**
+ * Runs several {@link Step}s one after another as a single step, so a chain of steps can run alongside others
+ * in a {@link ParallelStep}. Like the {@link RoutineRunner}, the next step is started and checked in the same loop
+ * the last one ends.
+ */
+public class SequentialStep extends GroupStep {
+	//Sequence State
+	private int mStepIndex = 0;
+	private boolean mIsStepActive = false;
+
+	/**
+	 * Constructor
+	 * @param timeout	Time in seconds before the whole sequence is abandoned, or {@link Step#NO_TIMEOUT}
+	 * @param steps		Steps to run in order
+	 */
+	public SequentialStep(double timeout, Step... steps) {
+		super(describe(steps), timeout, steps);
+	}
+
+	private static String describe(Step[] steps) {
+		StringBuilder description = new StringBuilder();
+		for(int index = 0; index < steps.length; index++) {
+			if(index > 0) description.append(" -> ");
+			description.append(steps[index].toString());
+		}
+		return description.toString();
+	}
+
+	@Override
+	public void start() {
+		resetChildren();
+		mStepIndex = 0;
+		mIsStepActive = false;
+	}
+
+	@Override
+	public boolean isFinished(double elapsed) {
+		updateElapsed(elapsed);
+		while(mStepIndex < mSteps.length) {
+			Step step = mSteps[mStepIndex];
+
+			if(!mIsStepActive) {
+				mIsStepActive = true;
+				startChild(mStepIndex, elapsed);
+			}
+
+			double stepElapsed = elapsed - getChildStartTime(mStepIndex);
+			boolean isTimedOut = stepElapsed > step.getTimeout();
+			if(!isTimedOut && !step.isFinished(stepElapsed)) return false;
+
+			endChild(mStepIndex, elapsed, isTimedOut ? Outcome.TIMED_OUT : Outcome.DONE);
+			mIsStepActive = false;
+			mStepIndex++;
+		}
+		return true;
+	}
+
+	@Override
+	public void end(boolean isTimedOut) {
+		if(mIsStepActive) endChild(mStepIndex, getLastElapsed(), Outcome.INTERRUPTED);
+		mIsStepActive = false;
+		mStepIndex = mSteps.length;
+	}
+}
@@ -0,0 +1,66 @@
+package frc.molib.auto;
+
+/**
+ * A single action within an autonomous {@link Routine}.
+ * <p>Simple steps hold no state of their own between runs, the {@link RoutineRunner} tracks timing, so one instance
+ * can be shared by any number of routines. Groups, {@link ParallelStep} and {@link SequentialStep}, track their children
+ * through each run, so build a new group for every place one is used rather than sharing it.</p>
+ */
+public abstract class Step {
+	/** Timeout for steps that should only end on their own condition */
+	public static final double NO_TIMEOUT = Double.POSITIVE_INFINITY;
+
+	/** How a step ended */
+	public static enum Outcome {
+		DONE("done"),
+		TIMED_OUT("TIMED OUT"),
+		INTERRUPTED("interrupted");
+
+		private final String label;
+
+		private Outcome(String label) {
+			this.label = label;
+		}
+
+		@Override public String toString() { return label; }
+	}
+
+	private final String mDescription;
+	private final double mTimeout;
+
+	/**
+	 * Constructor
+	 * @param description	Description of the step, used when logging transitions
+	 * @param timeout		Time in seconds before the step is abandoned, or {@link #NO_TIMEOUT}
+	 */
+	protected Step(String description, double timeout) {
+		mDescription = description;
+		mTimeout = timeout;
+	}
+
+	/** Runs once when the step begins */
+	public void start() {}
+
+	/**
+	 * Check the step's end condition. Called in the same loop as {@link #start()}, so instant steps take no time at all.
+	 * @param elapsed Time in seconds since the step began
+	 * @return True once the step is complete
+	 */
+	public abstract boolean isFinished(double elapsed);
+
+	/**
+	 * Runs once when the step ends
+	 * @param isTimedOut Whether the step was cut short before its end condition, by its timeout or its group
+	 */
+	public void end(boolean isTimedOut) {}
+
+	/**
+	 * Get how far the step's controller is from its target, recorded when the step ends
+	 * @return Error in the step's own units, or NaN if it has no controller
+	 */
+	public double getError() { return Double.NaN; }
+
+	public double getTimeout() { return mTimeout; }
+
+	@Override public String toString() { return mDescription; }
+}
@@ -0,0 +1,167 @@
+package frc.molib.auto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A precomputed trajectory for a differential drive, stored as parallel primitive arrays of timed states.
+ * <p>Trajectories are generated ahead of time and saved with {@link #write(File)}, so the robot only has to
+ * {@link #read(File)} them, with nothing generated or allocated while following one.</p>
+ * <p>The file is a header, a state count, then big-endian double [time, velocity, acceleration, x, y, heading, curvature]
+ * records, in seconds, meters and radians.</p>
+ */
+public class TimedPath {
+	/** File extension of trajectory files */
+	public static final String EXTENSION = ".traj";
+
+	//File header, "MOTP" followed by the format version
+	private static final int MAGIC = 0x4D4F5450;
+	private static final int VERSION = 1;
+
+	private final String mName;
+	private final double[] mTime;
+	private final double[] mVelocity;
+	private final double[] mAcceleration;
+	private final double[] mX;
+	private final double[] mY;
+	private final double[] mHeading;
+	private final double[] mCurvature;
+
+	/**
+	 * Constructor, every array must be the same length with times increasing
+	 * @param name			Name of the trajectory
+	 * @param time			Time of each state in seconds
+	 * @param velocity		Velocity in meters per second
+	 * @param acceleration	Acceleration in meters per second squared
+	 * @param x				Field X position in meters
+	 * @param y				Field Y position in meters
+	 * @param heading		Heading in radians, counter-clockwise positive
+	 * @param curvature		Curvature in radians per meter
+	 */
+	public TimedPath(String name, double[] time, double[] velocity, double[] acceleration, double[] x, double[] y, double[] heading, double[] curvature) {
+		if(time.length < 2) throw new IllegalArgumentException("Trajectory \"" + name + "\" needs at least two states");
+		mName = name;
+		mTime = time;
+		mVelocity = velocity;
+		mAcceleration = acceleration;
+		mX = x;
+		mY = y;
+		mHeading = heading;
+		mCurvature = curvature;
+	}
+
+	public String getName() { return mName; }
+
+	public int size() { return mTime.length; }
+
+	/** @return Time to run the whole trajectory in seconds */
+	public double getTotalTime() { return mTime[mTime.length - 1]; }
+
+	public double getTime(int index) { return mTime[index]; }
+	public double getVelocity(int index) { return mVelocity[index]; }
+	public double getAcceleration(int index) { return mAcceleration[index]; }
+	public double getX(int index) { return mX[index]; }
+	public double getY(int index) { return mY[index]; }
+	public double getHeading(int index) { return mHeading[index]; }
+	public double getCurvature(int index) { return mCurvature[index]; }
+
+	/**
+	 * Find the segment of the trajectory containing a time
+	 * @param time Time since the start of the trajectory in seconds
+	 * @return Index of the state starting the segment, so the segment runs to the next index
+	 */
+	public int findSegment(double time) {
+		int low = 0;
+		int high = mTime.length - 2;
+		while(low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if(mTime[middle] <= time) low = middle;
+			else high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Create a copy of the trajectory reflected across the middle of the field, for a field whose
+	 * two halves are mirror images. Heading and curvature are flipped to match.
+	 * @param fieldLength Length of the field in meters
+	 * @return Mirrored trajectory, with the same name
+	 */
+	public TimedPath mirrored(double fieldLength) {
+		int count = mTime.length;
+		double[] x = new double[count];
+		double[] heading = new double[count];
+		double[] curvature = new double[count];
+		for(int index = 0; index < count; index++) {
+			x[index] = fieldLength - mX[index];
+			heading[index] = Math.atan2(Math.sin(Math.PI - mHeading[index]), Math.cos(Math.PI - mHeading[index]));
+			curvature[index] = -mCurvature[index];
+		}
+		return new TimedPath(mName, mTime, mVelocity, mAcceleration, x, mY, heading, curvature);
+	}
+
+	/**
+	 * Read a trajectory file
+	 * @param file File to read, named after the trajectory
+	 * @return Trajectory
+	 * @throws IOException If the file can't be read or isn't a trajectory
+	 */
+	public static TimedPath read(File file) throws IOException {
+		try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if(input.readInt() != MAGIC || input.readInt() != VERSION) throw new IOException("not a version " + VERSION + " trajectory file");
+
+			int count = input.readInt();
+			if(count < 2) throw new IOException("only " + count + " states");
+			double[] time = new double[count];
+			double[] velocity = new double[count];
+			double[] acceleration = new double[count];
+			double[] x = new double[count];
+			double[] y = new double[count];
+			double[] heading = new double[count];
+			double[] curvature = new double[count];
+			for(int index = 0; index < count; index++) {
+				time[index] = input.readDouble();
+				velocity[index] = input.readDouble();
+				acceleration[index] = input.readDouble();
+				x[index] = input.readDouble();
+				y[index] = input.readDouble();
+				heading[index] = input.readDouble();
+				curvature[index] = input.readDouble();
+			}
+
+			String name = file.getName();
+			if(name.endsWith(EXTENSION)) name = name.substring(0, name.length() - EXTENSION.length());
+			return new TimedPath(name, time, velocity, acceleration, x, y, heading, curvature);
+		}
+	}
+
+	/**
+	 * Write the trajectory to a file, read back by {@link #read(File)}
+	 * @param file File to write
+	 * @throws IOException If the file can't be written
+	 */
+	public void write(File file) throws IOException {
+		try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(mTime.length);
+			for(int index = 0; index < mTime.length; index++) {
+				output.writeDouble(mTime[index]);
+				output.writeDouble(mVelocity[index]);
+				output.writeDouble(mAcceleration[index]);
+				output.writeDouble(mX[index]);
+				output.writeDouble(mY[index]);
+				output.writeDouble(mHeading[index]);
+				output.writeDouble(mCurvature[index]);
+			}
+		}
+	}
+
+	@Override public String toString() { return mName; }
+}
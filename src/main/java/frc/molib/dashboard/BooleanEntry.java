@@ -0,0 +1,65 @@
+package frc.molib.dashboard;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.BooleanSubscriber;
+import edu.wpi.first.networktables.BooleanTopic;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * <p>Creates a boolean entry in dashboard, read and written without boxing or allocation</p>
+ * <p>Values go straight through a typed NetworkTables publisher and subscriber, so unlike {@link Entry} it is safe
+ * to use every loop. The publisher is only created on the first {@link #set(boolean)}, so an entry that is only
+ * read never claims a topic another device publishes.</p>
+ * 
+ * @see edu.wpi.first.networktables.BooleanTopic
+ * @see frc.molib.dashboard.Entry
+ */
+public class BooleanEntry implements BooleanSupplier {
+	private final BooleanTopic mTopic;
+	private final BooleanSubscriber mSubscriber;
+	private BooleanPublisher mPublisher = null;
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 */
+	public BooleanEntry(NetworkTable parentTable, String key) { this(parentTable, key, false); }
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 * @param defaultValue	Value read until one has been published
+	 */
+	public BooleanEntry(NetworkTable parentTable, String key, boolean defaultValue) {
+		mTopic = parentTable.getBooleanTopic(key);
+		mSubscriber = mTopic.subscribe(defaultValue);
+	}
+
+	/**
+	 * Retrieves the entry's value
+	 * @return Current stored value, or the default if there is none
+	 */
+	@Override public boolean getAsBoolean() { return mSubscriber.get(); }
+
+	/**
+	 * Set the value of the entry
+	 * @param value New value
+	 */
+	public void set(boolean value) {
+		if(mPublisher == null) mPublisher = mTopic.publish();
+		mPublisher.set(value);
+	}
+
+	/**
+	 * Stops publishing this entry
+	 */
+	public void delete() {
+		if(mPublisher == null) return;
+		mPublisher.close();
+		mPublisher = null;
+	}
+}
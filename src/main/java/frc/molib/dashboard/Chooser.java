@@ -19,6 +19,7 @@ public class Chooser<OptionType extends Enum<OptionType>> {
 	private final String mKey;
 
 	private final SendableChooser<OptionType> chsSendable = new SendableChooser<OptionType>();
+	private boolean mIsPublished = false;
 
 	/**
 	 * Constructor
@@ -38,9 +39,13 @@ public class Chooser<OptionType extends Enum<OptionType>> {
 	}
 
 	/**
-	 * Must be run at the start, <i>but after NetworkTables has connected,</i> for it to appear in NetworkTables
+	 * Must be run at the start, <i>but after NetworkTables has connected,</i> for it to appear in NetworkTables.
+	 * <p>Safe to call again on reconnect; the chooser is only published once.</p>
 	 */
 	public void init() {
+		if(mIsPublished) return;
+		mIsPublished = true;
+
 		NetworkTable tblData = mParentTable.getSubTable(mKey);
 		SendableBuilderImpl builder = new SendableBuilderImpl();
 		builder.setTable(tblData);
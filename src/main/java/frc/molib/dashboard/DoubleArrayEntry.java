@@ -0,0 +1,67 @@
+package frc.molib.dashboard;
+
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleArrayTopic;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * <p>Creates a double array entry in dashboard, read and written without boxing</p>
+ * <p>Values go straight through a typed NetworkTables publisher and subscriber, so unlike {@link Entry} it is safe
+ * to use every loop. Reading still returns a new array whenever a value has been published. The publisher is only
+ * created on the first {@link #set(double[])}, so an entry that is only read never claims a topic another device publishes.</p>
+ *
+ * @see edu.wpi.first.networktables.DoubleArrayTopic
+ * @see frc.molib.dashboard.Entry
+ */
+public class DoubleArrayEntry implements Supplier<double[]> {
+	private static final double[] EMPTY_ARRAY = new double[0];
+
+	private final DoubleArrayTopic mTopic;
+	private final DoubleArraySubscriber mSubscriber;
+	private DoubleArrayPublisher mPublisher = null;
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 */
+	public DoubleArrayEntry(NetworkTable parentTable, String key) { this(parentTable, key, EMPTY_ARRAY); }
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 * @param defaultValue	Value read until one has been published, shared rather than copied
+	 */
+	public DoubleArrayEntry(NetworkTable parentTable, String key, double[] defaultValue) {
+		mTopic = parentTable.getDoubleArrayTopic(key);
+		mSubscriber = mTopic.subscribe(defaultValue);
+	}
+
+	/**
+	 * Retrieves the entry's value
+	 * @return Current stored value, or the default if there is none
+	 */
+	@Override public double[] get() { return mSubscriber.get(); }
+
+	/**
+	 * Set the value of the entry
+	 * @param value New value, copied when published so the caller can reuse the array
+	 */
+	public void set(double[] value) {
+		if(mPublisher == null) mPublisher = mTopic.publish();
+		mPublisher.set(value);
+	}
+
+	/**
+	 * Stops publishing this entry
+	 */
+	public void delete() {
+		if(mPublisher == null) return;
+		mPublisher.close();
+		mPublisher = null;
+	}
+}
@@ -0,0 +1,65 @@
+package frc.molib.dashboard;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.DoubleTopic;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * <p>Creates a double entry in dashboard, read and written without boxing or allocation</p>
+ * <p>Values go straight through a typed NetworkTables publisher and subscriber, so unlike {@link Entry} it is safe
+ * to use every loop. The publisher is only created on the first {@link #set(double)}, so an entry that is only
+ * read never claims a topic another device publishes.</p>
+ * 
+ * @see edu.wpi.first.networktables.DoubleTopic
+ * @see frc.molib.dashboard.Entry
+ */
+public class DoubleEntry implements DoubleSupplier {
+	private final DoubleTopic mTopic;
+	private final DoubleSubscriber mSubscriber;
+	private DoublePublisher mPublisher = null;
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 */
+	public DoubleEntry(NetworkTable parentTable, String key) { this(parentTable, key, 0.0); }
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 * @param defaultValue	Value read until one has been published
+	 */
+	public DoubleEntry(NetworkTable parentTable, String key, double defaultValue) {
+		mTopic = parentTable.getDoubleTopic(key);
+		mSubscriber = mTopic.subscribe(defaultValue);
+	}
+
+	/**
+	 * Retrieves the entry's value
+	 * @return Current stored value, or the default if there is none
+	 */
+	@Override public double getAsDouble() { return mSubscriber.get(); }
+
+	/**
+	 * Set the value of the entry
+	 * @param value New value
+	 */
+	public void set(double value) {
+		if(mPublisher == null) mPublisher = mTopic.publish();
+		mPublisher.set(value);
+	}
+
+	/**
+	 * Stops publishing this entry
+	 */
+	public void delete() {
+		if(mPublisher == null) return;
+		mPublisher.close();
+		mPublisher = null;
+	}
+}
@@ -5,6 +5,8 @@ import edu.wpi.first.networktables.NetworkTableEntry;
 
 /**
  * <p>Creates a typed entry in dashboard</p>
+ * <p>Every read and write boxes its value, so prefer {@link DoubleEntry}, {@link BooleanEntry}, or {@link IntegerEntry}
+ * for values updated every loop.</p>
  * @param <DataType> Data type the entry is configured to hold.
  * 
  * @see edu.wpi.first.networktables.NetworkTableEntry
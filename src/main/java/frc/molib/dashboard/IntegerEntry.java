@@ -0,0 +1,65 @@
+package frc.molib.dashboard;
+
+import java.util.function.LongSupplier;
+
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.IntegerSubscriber;
+import edu.wpi.first.networktables.IntegerTopic;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * <p>Creates an integer entry in dashboard, read and written without boxing or allocation</p>
+ * <p>Values go straight through a typed NetworkTables publisher and subscriber, so unlike {@link Entry} it is safe
+ * to use every loop. The publisher is only created on the first {@link #set(long)}, so an entry that is only
+ * read never claims a topic another device publishes.</p>
+ * 
+ * @see edu.wpi.first.networktables.IntegerTopic
+ * @see frc.molib.dashboard.Entry
+ */
+public class IntegerEntry implements LongSupplier {
+	private final IntegerTopic mTopic;
+	private final IntegerSubscriber mSubscriber;
+	private IntegerPublisher mPublisher = null;
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 */
+	public IntegerEntry(NetworkTable parentTable, String key) { this(parentTable, key, 0); }
+
+	/**
+	 * Constructor
+	 * @param parentTable	Parent NetworkTable
+	 * @param key			Identifier key
+	 * @param defaultValue	Value read until one has been published
+	 */
+	public IntegerEntry(NetworkTable parentTable, String key, long defaultValue) {
+		mTopic = parentTable.getIntegerTopic(key);
+		mSubscriber = mTopic.subscribe(defaultValue);
+	}
+
+	/**
+	 * Retrieves the entry's value
+	 * @return Current stored value, or the default if there is none
+	 */
+	@Override public long getAsLong() { return mSubscriber.get(); }
+
+	/**
+	 * Set the value of the entry
+	 * @param value New value
+	 */
+	public void set(long value) {
+		if(mPublisher == null) mPublisher = mTopic.publish();
+		mPublisher.set(value);
+	}
+
+	/**
+	 * Stops publishing this entry
+	 */
+	public void delete() {
+		if(mPublisher == null) return;
+		mPublisher.close();
+		mPublisher = null;
+	}
+}
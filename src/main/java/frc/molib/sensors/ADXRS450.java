@@ -0,0 +1,114 @@
+package frc.molib.sensors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import edu.wpi.first.hal.SimBoolean;
+import edu.wpi.first.hal.SimDevice;
+import edu.wpi.first.hal.SimDouble;
+import edu.wpi.first.wpilibj.SPI;
+import frc.molib.utilities.Console;
+
+/**
+ * ADXRS450 SPI gyro, read through the roboRIO's SPI accumulator without any startup calibration.
+ * <p>WPILib's ADXRS450_Gyro blocks in its constructor for several seconds while it measures the bias and bakes
+ * it into the accumulator. This class is ready as soon as it is constructed and reports the uncorrected angle and rate,
+ * so the owner can apply a bias it already knows, e.g. one stored from a previous boot, and measure it whenever it suits.</p>
+ * <p>In simulation it registers the same "Gyro:ADXRS450" SimDevice as WPILib, with "angle_x" and "rate_x" values.</p>
+ */
+public class ADXRS450 {
+	//Constants, from the ADXRS450 datasheet
+	private static final double SAMPLE_PERIOD = 0.0005;
+	private static final double DEGREES_PER_SECOND_PER_LSB = 0.0125;
+	private static final int PART_ID_REGISTER = 0x0C;
+	private static final int PART_ID = 0x5200;
+
+	private final SPI spiGyro;
+	private final boolean mIsConnected;
+
+	//Simulation
+	private final SimDevice simGyro;
+	private final SimDouble simAngle;
+	private final SimDouble simRate;
+
+	/**
+	 * Constructor
+	 * @param port SPI port the gyro is plugged into
+	 */
+	public ADXRS450(SPI.Port port) {
+		simGyro = SimDevice.create("Gyro:ADXRS450", port.value);
+		if(simGyro != null) {
+			SimBoolean simConnected = simGyro.createBoolean("connected", SimDevice.Direction.kInput, true);
+			simAngle = simGyro.createDouble("angle_x", SimDevice.Direction.kInput, 0.0);
+			simRate = simGyro.createDouble("rate_x", SimDevice.Direction.kInput, 0.0);
+			spiGyro = null;
+			mIsConnected = simConnected.get();
+			return;
+		}
+		simAngle = null;
+		simRate = null;
+
+		spiGyro = new SPI(port);
+		spiGyro.setClockRate(3000000);
+		spiGyro.setSampleDataOnLeadingEdge();
+		spiGyro.setClockActiveHigh();
+		spiGyro.setChipSelectActiveLow();
+
+		mIsConnected = (readRegister(PART_ID_REGISTER) & 0xff00) == PART_ID;
+		if(!mIsConnected) {
+			Console.logErr("Could not find ADXRS450 gyro on SPI port " + port.value);
+			return;
+		}
+
+		//Continuously read the rate into the accumulator, which integrates it into the angle
+		spiGyro.initAccumulator(SAMPLE_PERIOD, 0x20000000, 4, 0x0c00000e, 0x04000000, 10, 16, true, true);
+	}
+
+	/**
+	 * Get whether the gyro answered with its part ID at startup
+	 * @return True if readings can be used
+	 */
+	public boolean isConnected() {
+		return mIsConnected;
+	}
+
+	/**
+	 * Get the angle turned since startup or the last reset, including any bias drift
+	 * @return Angle in degrees, clockwise positive
+	 */
+	public double getAngle() {
+		if(simGyro != null) return simAngle.get();
+		if(!mIsConnected) return 0.0;
+		return spiGyro.getAccumulatorIntegratedValue() * DEGREES_PER_SECOND_PER_LSB;
+	}
+
+	/**
+	 * Get the latest rate reading, including the bias
+	 * @return Rate in degrees per second, clockwise positive
+	 */
+	public double getRate() {
+		if(simGyro != null) return simRate.get();
+		if(!mIsConnected) return 0.0;
+		return spiGyro.getAccumulatorLastValue() * DEGREES_PER_SECOND_PER_LSB;
+	}
+
+	/** Reset the angle to 0.0 */
+	public void reset() {
+		if(simGyro != null) simAngle.set(0.0);
+		else if(mIsConnected) spiGyro.resetAccumulator();
+	}
+
+	private int readRegister(int register) {
+		int command = 0x8000 | (register << 1);
+		ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+		buffer.put(0, (byte)(command >> 8));
+		buffer.put(1, (byte)(command & 0xff));
+		buffer.put(2, (byte)0);
+		buffer.put(3, (byte)(Integer.bitCount(command) % 2 == 1 ? 0 : 1)); //Odd parity over the whole command
+
+		spiGyro.write(buffer, 4);
+		spiGyro.read(false, buffer, 4);
+		if((buffer.get(0) & 0xe0) == 0) return 0; //Error response
+		return (buffer.getInt(0) >> 5) & 0xffff;
+	}
+}
@@ -1,20 +1,94 @@
 package frc.molib.sensors;
 
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DigitalGlitchFilter;
+
 public class DigitalInput extends edu.wpi.first.wpilibj.DigitalInput {
-    private boolean mIsInverted = false;
+    private volatile boolean mIsInverted = false;
+
+    //Edge Detection
+    private DigitalGlitchFilter mGlitchFilter = null;
+    private AsynchronousInterrupt mInterrupt = null;
+    private Runnable mOnActivated = null;
+    private Runnable mOnDeactivated = null;
+    private volatile double mActivatedTimestamp = 0.0;
+    private volatile double mDeactivatedTimestamp = 0.0;
 
     public DigitalInput(int channel) { this(channel, false); }
     public DigitalInput(int channel, boolean isInverted) {
-        super(channel);   
+        super(channel);
         mIsInverted = isInverted;
     }
 
     public void configInverted(boolean isInverted) { mIsInverted = isInverted; }
 
+    /**
+     * Filter out pulses shorter than the given period in the FPGA, before they reach get() or any interrupt.
+     * <p>The roboRIO only has three glitch filters to share between every input.</p>
+     * @param period Minimum time the signal must hold a new state to be accepted, in seconds
+     */
+    public void configDebounce(double period) {
+        if(mGlitchFilter == null) {
+            mGlitchFilter = new DigitalGlitchFilter();
+            mGlitchFilter.add(this);
+        }
+        mGlitchFilter.setPeriodNanoSeconds((long)(period * 1.0e9));
+    }
+
+    /**
+     * Watch both edges with an asynchronous interrupt, instead of waiting for the input to be polled.
+     * <p>The callbacks run on the interrupt thread, so they must be short and thread safe.</p>
+     * @param onActivated   Called as soon as get() becomes true, or null
+     * @param onDeactivated Called as soon as get() becomes false, or null
+     */
+    public void configInterrupt(Runnable onActivated, Runnable onDeactivated) {
+        mOnActivated = onActivated;
+        mOnDeactivated = onDeactivated;
+
+        if(mInterrupt == null) {
+            mInterrupt = new AsynchronousInterrupt(this, this::handleInterrupt);
+            mInterrupt.setInterruptEdges(true, true);
+            mInterrupt.enable();
+        }
+    }
+
+    /**
+     * Get the time of the last edge that made get() true
+     * @return FPGA time in seconds, or 0.0 if it has not happened since the interrupt was configured
+     */
+    public double getActivatedTimestamp() { return mActivatedTimestamp; }
+
+    /**
+     * Get the time of the last edge that made get() false
+     * @return FPGA time in seconds, or 0.0 if it has not happened since the interrupt was configured
+     */
+    public double getDeactivatedTimestamp() { return mDeactivatedTimestamp; }
+
     @Override
     public boolean get() {
         if(mIsInverted) return !super.get();
         else return super.get();
     }
-    
+
+    @Override
+    public void close() {
+        if(mInterrupt != null) mInterrupt.close();
+        if(mGlitchFilter != null) mGlitchFilter.close();
+        super.close();
+    }
+
+    private void handleInterrupt(Boolean isRising, Boolean isFalling) {
+        boolean isActivated = mIsInverted ? isFalling : isRising;
+        boolean isDeactivated = mIsInverted ? isRising : isFalling;
+
+        if(isActivated) {
+            mActivatedTimestamp = mIsInverted ? mInterrupt.getFallingTimestamp() : mInterrupt.getRisingTimestamp();
+            if(mOnActivated != null) mOnActivated.run();
+        }
+        if(isDeactivated) {
+            mDeactivatedTimestamp = mIsInverted ? mInterrupt.getRisingTimestamp() : mInterrupt.getFallingTimestamp();
+            if(mOnDeactivated != null) mOnDeactivated.run();
+        }
+    }
+
 }
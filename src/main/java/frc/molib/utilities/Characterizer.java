@@ -0,0 +1,270 @@
+package frc.molib.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * System-identification routines for a single mechanism.
+ * <p>Runs quasistatic (slow voltage ramp) and dynamic (voltage step) tests on its own {@link Notifier},
+ * faster than the robot loop, recording [time, voltage, position, velocity] into preallocated float arrays.
+ * An ordinary least squares fit of <code>V = kS·sgn(v) + kV·v + kA·a</code> across every recorded test gives the feedforward constants.</p>
+ * <p>The callbacks run on the Notifier thread, so they must only touch things the main loop isn't using at the same time,
+ * e.g. cloned status signals, and the mechanism must stop commanding its motors while {@link #isRunning()}.</p>
+ */
+public class Characterizer {
+	/** Characterization tests, each run in both directions */
+	public static enum Test {
+		QUASISTATIC_FORWARD("Quasistatic Forward", true, 1.0),
+		QUASISTATIC_REVERSE("Quasistatic Reverse", true, -1.0),
+		DYNAMIC_FORWARD("Dynamic Forward", false, 1.0),
+		DYNAMIC_REVERSE("Dynamic Reverse", false, -1.0);
+
+		private final String label;
+		public final boolean isQuasistatic;
+		public final double direction;
+
+		private Test(String label, boolean isQuasistatic, double direction) {
+			this.label = label;
+			this.isQuasistatic = isQuasistatic;
+			this.direction = direction;
+		}
+
+		@Override public String toString() { return label; }
+	}
+
+	//Constants
+	private static final double SAMPLE_PERIOD = 0.005;
+	private static final int MAX_SAMPLES = 8000;
+	private static final double MIN_FIT_VELOCITY = 1.0e-3;
+
+	//Mechanism
+	private final String mName;
+	private final DoubleConsumer mVoltageOutput;
+	private final Runnable mRefresh;
+	private final DoubleSupplier mPosition;
+	private final DoubleSupplier mVelocity;
+
+	//Test Configuration
+	private final double mRampRate;
+	private final double mStepVoltage;
+	private final double mQuasistaticTime;
+	private final double mDynamicTime;
+
+	//Recorded Samples, tests are separated by a NaN time so acceleration isn't taken across them
+	private final float[] mTime = new float[MAX_SAMPLES];
+	private final float[] mVoltage = new float[MAX_SAMPLES];
+	private final float[] mPositions = new float[MAX_SAMPLES];
+	private final float[] mVelocities = new float[MAX_SAMPLES];
+	private volatile int mSampleCount = 0;
+
+	private final Notifier ntfSample;
+	private volatile boolean mIsRunning = false;
+	private Test mTest = Test.QUASISTATIC_FORWARD;
+	private double mStartTime = 0.0;
+
+	/**
+	 * Constructor
+	 * @param name				Name of the mechanism, used for the log file
+	 * @param voltageOutput		Applies a voltage to the mechanism's motors
+	 * @param refresh			Refreshes the mechanism's sensors before each sample
+	 * @param position			Reads the mechanism position
+	 * @param velocity			Reads the mechanism velocity, in position units per second
+	 * @param rampRate			Quasistatic ramp rate, in volts per second
+	 * @param stepVoltage		Dynamic step voltage
+	 * @param quasistaticTime	Length of each quasistatic test in seconds
+	 * @param dynamicTime		Length of each dynamic test in seconds
+	 */
+	public Characterizer(String name, DoubleConsumer voltageOutput, Runnable refresh, DoubleSupplier position, DoubleSupplier velocity,
+			double rampRate, double stepVoltage, double quasistaticTime, double dynamicTime) {
+		mName = name;
+		mVoltageOutput = voltageOutput;
+		mRefresh = refresh;
+		mPosition = position;
+		mVelocity = velocity;
+		mRampRate = rampRate;
+		mStepVoltage = stepVoltage;
+		mQuasistaticTime = quasistaticTime;
+		mDynamicTime = dynamicTime;
+
+		ntfSample = new Notifier(this::sample);
+		ntfSample.setName(name + " Characterizer");
+	}
+
+	/**
+	 * Begin a test, appending its samples to any already recorded
+	 * @param test Test to run
+	 */
+	public synchronized void start(Test test) {
+		if(mIsRunning) return;
+		if(mSampleCount >= MAX_SAMPLES) {
+			Console.logMsg(mName + " characterization log is full, clear it before running more tests");
+			return;
+		}
+
+		Console.logMsg("Characterizing " + mName + ": " + test.toString() + "...");
+		mTest = test;
+		mStartTime = Timer.getFPGATimestamp();
+		mIsRunning = true;
+		ntfSample.startPeriodic(SAMPLE_PERIOD);
+	}
+
+	/** End the current test early and release the motors */
+	public synchronized void stop() {
+		if(!mIsRunning) return;
+
+		ntfSample.stop();
+		mVoltageOutput.accept(0.0);
+		mTime[mSampleCount++] = Float.NaN;
+		mIsRunning = false;
+		Console.logMsg(mName + " characterization test complete, " + mSampleCount + " samples recorded");
+	}
+
+	public boolean isRunning() { return mIsRunning; }
+
+	/** Throw away every recorded sample */
+	public synchronized void clear() {
+		if(!mIsRunning) mSampleCount = 0;
+	}
+
+	private synchronized void sample() {
+		if(!mIsRunning) return;
+
+		//Always leave room for the NaN separating this test from the next
+		double time = Timer.getFPGATimestamp() - mStartTime;
+		double limit = mTest.isQuasistatic ? mQuasistaticTime : mDynamicTime;
+		if(time > limit || mSampleCount >= MAX_SAMPLES - 1) {
+			stop();
+			return;
+		}
+
+		double voltage = mTest.direction * (mTest.isQuasistatic ? mRampRate * time : mStepVoltage);
+		mVoltageOutput.accept(voltage);
+		mRefresh.run();
+
+		int index = mSampleCount;
+		mTime[index] = (float)time;
+		mVoltage[index] = (float)voltage;
+		mPositions[index] = (float)mPosition.getAsDouble();
+		mVelocities[index] = (float)mVelocity.getAsDouble();
+		mSampleCount = index + 1;
+	}
+
+	/**
+	 * Fit feedforward constants to every recorded sample
+	 * @return [kS, kV, kA, r²], or null if there isn't enough data
+	 */
+	public synchronized double[] fit() {
+		if(mIsRunning) return null;
+
+		//Normal equations for three regressors: sgn(v), v, a
+		double[][] xtx = new double[3][3];
+		double[] xty = new double[3];
+		double[] row = new double[3];
+		double sumY = 0.0, sumYY = 0.0;
+		int count = 0;
+
+		for(int index = 1; index < mSampleCount - 1; index++) {
+			if(Float.isNaN(mTime[index - 1]) || Float.isNaN(mTime[index]) || Float.isNaN(mTime[index + 1])) continue;
+			if(Math.abs(mVelocities[index]) < MIN_FIT_VELOCITY) continue;
+
+			//Central difference acceleration, rejecting samples taken in the same instant
+			double dt = mTime[index + 1] - mTime[index - 1];
+			if(dt <= 0.0) continue;
+			row[0] = Math.signum(mVelocities[index]);
+			row[1] = mVelocities[index];
+			row[2] = (mVelocities[index + 1] - mVelocities[index - 1]) / dt;
+
+			double y = mVoltage[index];
+			for(int i = 0; i < 3; i++) {
+				for(int j = 0; j < 3; j++) xtx[i][j] += row[i] * row[j];
+				xty[i] += row[i] * y;
+			}
+			sumY += y;
+			sumYY += y * y;
+			count++;
+		}
+
+		if(count < 3) return null;
+		double[] gains = solve(xtx, xty);
+		if(gains == null) return null;
+
+		//Coefficient of determination from the normal equations: SSres = yᵀy - βᵀXᵀy
+		double ssTotal = sumYY - (sumY * sumY) / count;
+		double ssResidual = sumYY - (gains[0] * xty[0] + gains[1] * xty[1] + gains[2] * xty[2]);
+		double rSquared = ssTotal > 0.0 ? 1.0 - (ssResidual / ssTotal) : 0.0;
+
+		return new double[] { gains[0], gains[1], gains[2], rSquared };
+	}
+
+	/** Solve a 3x3 system by Gaussian elimination with partial pivoting, or null if singular */
+	private static double[] solve(double[][] a, double[] b) {
+		double[][] m = new double[3][4];
+		for(int i = 0; i < 3; i++) {
+			for(int j = 0; j < 3; j++) m[i][j] = a[i][j];
+			m[i][3] = b[i];
+		}
+
+		for(int col = 0; col < 3; col++) {
+			int pivot = col;
+			for(int r = col + 1; r < 3; r++) if(Math.abs(m[r][col]) > Math.abs(m[pivot][col])) pivot = r;
+			if(Math.abs(m[pivot][col]) < 1.0e-12) return null;
+			double[] swap = m[col]; m[col] = m[pivot]; m[pivot] = swap;
+
+			for(int r = 0; r < 3; r++) {
+				if(r == col) continue;
+				double factor = m[r][col] / m[col][col];
+				for(int c = col; c < 4; c++) m[r][c] -= factor * m[col][c];
+			}
+		}
+
+		return new double[] { m[0][3] / m[0][0], m[1][3] / m[1][1], m[2][3] / m[2][2] };
+	}
+
+	/**
+	 * Write every recorded sample to <code>sysid/&lt;name&gt;.bin</code> in the operating directory, on a background thread.
+	 * The file is a sample count followed by big-endian float [time, voltage, position, velocity] records.
+	 * The samples are copied under the sample lock first, so a new test or {@link #clear()} can't change them mid-write.
+	 */
+	public void save() {
+		int count;
+		float[] time, voltage, positions, velocities;
+		synchronized(this) {
+			if(mIsRunning) return;
+			count = mSampleCount;
+			time = Arrays.copyOf(mTime, count);
+			voltage = Arrays.copyOf(mVoltage, count);
+			positions = Arrays.copyOf(mPositions, count);
+			velocities = Arrays.copyOf(mVelocities, count);
+		}
+
+		Thread thdSave = new Thread(() -> {
+			File directory = new File(Filesystem.getOperatingDirectory(), "sysid");
+			directory.mkdirs();
+			File file = new File(directory, mName.replace(' ', '_') + ".bin");
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+				output.writeInt(count);
+				for(int index = 0; index < count; index++) {
+					output.writeFloat(time[index]);
+					output.writeFloat(voltage[index]);
+					output.writeFloat(positions[index]);
+					output.writeFloat(velocities[index]);
+				}
+				Console.logMsg("Saved " + mName + " characterization log to " + file.getPath());
+			} catch(IOException e) {
+				Console.logErr("Failed to save " + mName + " characterization log: " + e.getMessage());
+			}
+		}, mName + " Characterization Save");
+		thdSave.setDaemon(true);
+		thdSave.start();
+	}
+}
@@ -0,0 +1,102 @@
+package frc.molib.utilities;
+
+/**
+ * Curvature ("Cheesy") drive for a differential Chassis.
+ * <p>The steering input sets the curvature of the path rather than a turn rate, so turning scales with throttle and
+ * the robot holds the same arc at any speed. Quick-turn allows turning in place. Negative inertia briefly exaggerates
+ * changes in steering to overcome the Chassis' rotational inertia, and a quick-stop accumulator counteracts the
+ * leftover spin when coming out of a quick-turn.</p>
+ * <p>Call {@link #calculate(double, double, boolean)} once per loop, then read {@link #getLeft()} and {@link #getRight()}.
+ * Nothing is allocated once constructed.</p>
+ */
+public class CurvatureDrive {
+	//Constants
+	private static final double QUICK_STOP_DEADBAND = 0.2;
+	private static final double QUICK_STOP_WEIGHT = 0.1;
+	private static final double QUICK_STOP_SCALAR = 2.0;
+
+	//Configuration
+	private final double mTurnSensitivity;
+	private final double mNegativeInertiaGain;
+
+	//Drive State
+	private double mLastSteering = 0.0;
+	private double mNegativeInertiaAccumulator = 0.0;
+	private double mQuickStopAccumulator = 0.0;
+
+	//Outputs
+	private double mLeft = 0.0;
+	private double mRight = 0.0;
+
+	/**
+	 * Constructor
+	 * @param turnSensitivity		Curvature gain while driving, 1.0 turns hardest at full throttle
+	 * @param negativeInertiaGain	How strongly changes in steering are exaggerated, 0.0 to disable
+	 */
+	public CurvatureDrive(double turnSensitivity, double negativeInertiaGain) {
+		mTurnSensitivity = turnSensitivity;
+		mNegativeInertiaGain = negativeInertiaGain;
+	}
+
+	/** Clear all accumulated state, e.g. at the start of a period */
+	public void reset() {
+		mLastSteering = 0.0;
+		mNegativeInertiaAccumulator = 0.0;
+		mQuickStopAccumulator = 0.0;
+		mLeft = 0.0;
+		mRight = 0.0;
+	}
+
+	/**
+	 * Calculate the left and right outputs for the current inputs
+	 * @param throttle		[-1.0 to 1.0] Forward/Reverse input
+	 * @param steering		[-1.0 to 1.0] Left/Right curvature input
+	 * @param isQuickTurn	Whether to turn in place, ignoring throttle for steering
+	 */
+	public void calculate(double throttle, double steering, boolean isQuickTurn) {
+		//Negative inertia, decaying by one unit of steering per loop
+		double negativeInertia = steering - mLastSteering;
+		mLastSteering = steering;
+		mNegativeInertiaAccumulator += negativeInertia * mNegativeInertiaGain;
+		steering += mNegativeInertiaAccumulator;
+		mNegativeInertiaAccumulator = decay(mNegativeInertiaAccumulator, 1.0);
+
+		double angularPower;
+		if(isQuickTurn) {
+			//Remember how hard we were spinning so the quick-stop can counter it afterwards
+			if(Math.abs(throttle) < QUICK_STOP_DEADBAND)
+				mQuickStopAccumulator = ((1.0 - QUICK_STOP_WEIGHT) * mQuickStopAccumulator) + (QUICK_STOP_WEIGHT * clamp(steering) * QUICK_STOP_SCALAR);
+			angularPower = steering;
+		} else {
+			angularPower = (Math.abs(throttle) * steering * mTurnSensitivity) - mQuickStopAccumulator;
+			mQuickStopAccumulator = decay(mQuickStopAccumulator, 1.0);
+		}
+
+		//Keep the difference between sides when one saturates, so the robot still turns at full throttle
+		double left = throttle + angularPower;
+		double right = throttle - angularPower;
+		if(left > 1.0) { right -= left - 1.0; left = 1.0; }
+		else if(right > 1.0) { left -= right - 1.0; right = 1.0; }
+		else if(left < -1.0) { right += -1.0 - left; left = -1.0; }
+		else if(right < -1.0) { left += -1.0 - right; right = -1.0; }
+
+		mLeft = clamp(left);
+		mRight = clamp(right);
+	}
+
+	/** @return [-1.0 to 1.0] Left side output from the last calculation */
+	public double getLeft() { return mLeft; }
+
+	/** @return [-1.0 to 1.0] Right side output from the last calculation */
+	public double getRight() { return mRight; }
+
+	private static double clamp(double value) {
+		return Math.max(-1.0, Math.min(1.0, value));
+	}
+
+	private static double decay(double value, double step) {
+		if(value > step) return value - step;
+		else if(value < -step) return value + step;
+		else return 0.0;
+	}
+}
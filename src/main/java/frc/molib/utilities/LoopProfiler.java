@@ -0,0 +1,176 @@
+package frc.molib.utilities;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.molib.dashboard.Entry;
+
+/**
+ * Timestamps each stage of the robot loop using the FPGA clock, keeping min/mean/p99/max
+ * and a loop period jitter histogram in preallocated primitive arrays.
+ * <p>Call {@link #beginLoop()} at the top of the loop, {@link #mark(Enum)} after each stage,
+ * and {@link #endLoop()} once everything has run. Any time after the last mark is counted as overhead.</p>
+ *
+ * @param <StageType> Enumeration tied to the list of stages.
+ */
+public class LoopProfiler<StageType extends Enum<StageType>> {
+	//Histogram resolution and range, in microseconds
+	private static final long BIN_WIDTH = 50;
+	private static final int BIN_COUNT = 500;
+
+	private final StageType[] mStages;
+	private final long mNominalPeriod;
+	private final int mPublishInterval;
+
+	//Per-stage statistics, index [stages] is overhead and [stages + 1] is the whole loop
+	private final long[] mCount;
+	private final long[] mSum;
+	private final long[] mMin;
+	private final long[] mMax;
+	private final int[][] mHistogram;
+
+	//Loop period jitter statistics
+	private final int[] mJitterHistogram = new int[BIN_COUNT];
+	private long mJitterCount = 0;
+	private long mJitterMax = 0;
+	private long mOverrunCount = 0;
+
+	private long mLoopStartTime = 0;
+	private long mLastMarkTime = 0;
+	private int mLoopsSincePublish = 0;
+
+	//Dashboard Values
+	private final Entry<double[]>[] entStages;
+	private final Entry<double[]> entJitter;
+	private final Entry<Double> entOverruns;
+	private final double[][] mSummaryBuffer;
+	private final double[] mJitterBuffer = new double[3];
+
+	/**
+	 * Constructor
+	 * @param parentTable		Parent NetworkTable to publish the summary under
+	 * @param stageType			Enumeration of the stages to be timed
+	 * @param nominalPeriod		Expected loop period in seconds
+	 * @param publishInterval	Number of loops between each published summary
+	 */
+	@SuppressWarnings("unchecked")
+	public LoopProfiler(NetworkTable parentTable, Class<StageType> stageType, double nominalPeriod, int publishInterval) {
+		mStages = stageType.getEnumConstants();
+		mNominalPeriod = (long)(nominalPeriod * 1.0e6);
+		mPublishInterval = publishInterval;
+
+		int slots = mStages.length + 2;
+		mCount = new long[slots];
+		mSum = new long[slots];
+		mMin = new long[slots];
+		mMax = new long[slots];
+		mHistogram = new int[slots][BIN_COUNT];
+		mSummaryBuffer = new double[slots][4];
+
+		entStages = new Entry[slots];
+		for(StageType stage : mStages)
+			entStages[stage.ordinal()] = new Entry<double[]>(parentTable, stage.toString());
+		entStages[mStages.length] = new Entry<double[]>(parentTable, "Overhead");
+		entStages[mStages.length + 1] = new Entry<double[]>(parentTable, "Loop");
+		entJitter = new Entry<double[]>(parentTable, "Jitter");
+		entOverruns = new Entry<Double>(parentTable, "Overruns");
+
+		reset();
+	}
+
+	/** Clear all collected statistics */
+	public void reset() {
+		for(int slot = 0; slot < mCount.length; slot++) {
+			mCount[slot] = 0;
+			mSum[slot] = 0;
+			mMin[slot] = Long.MAX_VALUE;
+			mMax[slot] = 0;
+			for(int bin = 0; bin < BIN_COUNT; bin++) mHistogram[slot][bin] = 0;
+		}
+		for(int bin = 0; bin < BIN_COUNT; bin++) mJitterHistogram[bin] = 0;
+		mJitterCount = 0;
+		mJitterMax = 0;
+	}
+
+	/** Mark the start of a new loop. Also measures the period since the previous loop started. */
+	public void beginLoop() {
+		long now = RobotController.getFPGATime();
+
+		if(mLoopStartTime != 0) {
+			long jitter = Math.abs((now - mLoopStartTime) - mNominalPeriod);
+			mJitterHistogram[toBin(jitter)]++;
+			mJitterCount++;
+			if(jitter > mJitterMax) mJitterMax = jitter;
+		}
+
+		mLoopStartTime = now;
+		mLastMarkTime = now;
+	}
+
+	/**
+	 * Record the time spent since the last mark against a stage
+	 * @param stage Stage that just finished
+	 */
+	public void mark(StageType stage) {
+		long now = RobotController.getFPGATime();
+		record(stage.ordinal(), now - mLastMarkTime);
+		mLastMarkTime = now;
+	}
+
+	/** Mark the end of the loop, recording overhead and total loop time, and publish if due */
+	public void endLoop() {
+		long now = RobotController.getFPGATime();
+		record(mStages.length, now - mLastMarkTime);
+		record(mStages.length + 1, now - mLoopStartTime);
+		if(now - mLoopStartTime > mNominalPeriod) mOverrunCount++;
+
+		if(++mLoopsSincePublish >= mPublishInterval) {
+			publish();
+			reset();
+			mLoopsSincePublish = 0;
+		}
+	}
+
+	/** Push the current summary to the Dashboard. Each stage is published as [min, mean, p99, max] in milliseconds. */
+	public void publish() {
+		for(int slot = 0; slot < mCount.length; slot++) {
+			if(mCount[slot] == 0) continue;
+			mSummaryBuffer[slot][0] = mMin[slot] / 1000.0;
+			mSummaryBuffer[slot][1] = (mSum[slot] / (double)mCount[slot]) / 1000.0;
+			mSummaryBuffer[slot][2] = percentile(mHistogram[slot], mCount[slot], 0.99) / 1000.0;
+			mSummaryBuffer[slot][3] = mMax[slot] / 1000.0;
+			entStages[slot].set(mSummaryBuffer[slot]);
+		}
+
+		if(mJitterCount > 0) {
+			mJitterBuffer[0] = percentile(mJitterHistogram, mJitterCount, 0.50) / 1000.0;
+			mJitterBuffer[1] = percentile(mJitterHistogram, mJitterCount, 0.99) / 1000.0;
+			mJitterBuffer[2] = mJitterMax / 1000.0;
+			entJitter.set(mJitterBuffer);
+		}
+
+		entOverruns.set((double)mOverrunCount);
+	}
+
+	private void record(int slot, long duration) {
+		mCount[slot]++;
+		mSum[slot] += duration;
+		if(duration < mMin[slot]) mMin[slot] = duration;
+		if(duration > mMax[slot]) mMax[slot] = duration;
+		mHistogram[slot][toBin(duration)]++;
+	}
+
+	private static int toBin(long duration) {
+		int bin = (int)(duration / BIN_WIDTH);
+		return bin < BIN_COUNT ? bin : BIN_COUNT - 1;
+	}
+
+	private static long percentile(int[] histogram, long count, double fraction) {
+		long target = (long)Math.ceil(count * fraction);
+		long seen = 0;
+		for(int bin = 0; bin < BIN_COUNT; bin++) {
+			seen += histogram[bin];
+			if(seen >= target) return (bin + 1) * BIN_WIDTH;
+		}
+		return BIN_COUNT * BIN_WIDTH;
+	}
+}
@@ -0,0 +1,160 @@
+package frc.molib.utilities;
+
+/**
+ * Relay-feedback PID auto-tuner (Åström-Hägglund).
+ * <p>Replaces the controller with a bang-bang relay around the setpoint, which drives the loop into a steady oscillation.
+ * The amplitude and period of that oscillation give the ultimate gain and period, from which PID gains are calculated.</p>
+ * <p>Call {@link #start(double)} once, then {@link #calculate(double, double)} every loop and apply its output
+ * until {@link #isFinished()}. Nothing is allocated once constructed.</p>
+ */
+public class RelayTuner {
+	/** Rules for turning the ultimate gain and period into PID gains */
+	public static enum TuningRule {
+		/** Ziegler-Nichols: fastest response, around 25% overshoot */
+		CLASSIC(0.6, 1.2, 0.075),
+		/** Ziegler-Nichols "some overshoot" */
+		SOME_OVERSHOOT(0.33, 0.66, 0.11),
+		/** Ziegler-Nichols "no overshoot": slower, but safest for a drivetrain */
+		NO_OVERSHOOT(0.2, 0.4, 0.066);
+
+		public final double kP, kI, kD;
+
+		private TuningRule(double kP, double kI, double kD) {
+			this.kP = kP;
+			this.kI = kI;
+			this.kD = kD;
+		}
+	}
+
+	//Configuration
+	private final double mAmplitude;
+	private final double mHysteresis;
+	private final int mSkippedCycles;
+	private final double[] mPeriods;
+	private final double[] mPeakToPeaks;
+
+	//Tuning State
+	private double mSetpoint = 0.0;
+	private boolean mIsRunning = false;
+	private boolean mIsRelayHigh = true;
+	private int mCycleCount = 0;
+	private double mLastRiseTime = Double.NaN;
+	private double mCycleMax = Double.NEGATIVE_INFINITY;
+	private double mCycleMin = Double.POSITIVE_INFINITY;
+
+	//Results
+	private double mUltimateGain = Double.NaN;
+	private double mUltimatePeriod = Double.NaN;
+
+	/**
+	 * Constructor
+	 * @param amplitude		Relay output, applied as +/- this value around the setpoint
+	 * @param hysteresis	How far past the setpoint the measurement must go before the relay switches, to reject noise
+	 * @param skippedCycles	Number of oscillations to let settle before measuring
+	 * @param measuredCycles	Number of oscillations to average into the result
+	 */
+	public RelayTuner(double amplitude, double hysteresis, int skippedCycles, int measuredCycles) {
+		mAmplitude = amplitude;
+		mHysteresis = hysteresis;
+		mSkippedCycles = skippedCycles;
+		mPeriods = new double[measuredCycles];
+		mPeakToPeaks = new double[measuredCycles];
+	}
+
+	/**
+	 * Begin a new tuning run, throwing away any previous result
+	 * @param setpoint Point to oscillate around
+	 */
+	public void start(double setpoint) {
+		mSetpoint = setpoint;
+		mIsRunning = true;
+		mIsRelayHigh = true;
+		mCycleCount = 0;
+		mLastRiseTime = Double.NaN;
+		mCycleMax = Double.NEGATIVE_INFINITY;
+		mCycleMin = Double.POSITIVE_INFINITY;
+		mUltimateGain = Double.NaN;
+		mUltimatePeriod = Double.NaN;
+	}
+
+	/** Abandon the current tuning run */
+	public void stop() {
+		mIsRunning = false;
+	}
+
+	public boolean isRunning() { return mIsRunning; }
+
+	/**
+	 * Get whether a tuning run has completed and produced a result
+	 * @return True if the ultimate gain and period are available
+	 */
+	public boolean isFinished() { return !Double.isNaN(mUltimatePeriod); }
+
+	/**
+	 * Advance the relay with a new measurement
+	 * @param measurement	Current measurement of the process variable
+	 * @param timestamp		Time of the measurement in seconds
+	 * @return Relay output to apply, 0.0 once finished or stopped
+	 */
+	public double calculate(double measurement, double timestamp) {
+		if(!mIsRunning) return 0.0;
+
+		if(measurement > mCycleMax) mCycleMax = measurement;
+		if(measurement < mCycleMin) mCycleMin = measurement;
+
+		if(mIsRelayHigh && measurement > mSetpoint + mHysteresis) {
+			mIsRelayHigh = false;
+		} else if(!mIsRelayHigh && measurement < mSetpoint - mHysteresis) {
+			//Each switch back to high completes one full oscillation
+			mIsRelayHigh = true;
+			if(!Double.isNaN(mLastRiseTime)) recordCycle(timestamp - mLastRiseTime);
+			mLastRiseTime = timestamp;
+			mCycleMax = measurement;
+			mCycleMin = measurement;
+		}
+
+		return mIsRelayHigh ? mAmplitude : -mAmplitude;
+	}
+
+	private void recordCycle(double period) {
+		int index = mCycleCount - mSkippedCycles;
+		mCycleCount++;
+		if(index < 0) return;
+
+		mPeriods[index] = period;
+		mPeakToPeaks[index] = mCycleMax - mCycleMin;
+		if(index < mPeriods.length - 1) return;
+
+		double periodSum = 0.0;
+		double peakToPeakSum = 0.0;
+		for(int cycle = 0; cycle < mPeriods.length; cycle++) {
+			periodSum += mPeriods[cycle];
+			peakToPeakSum += mPeakToPeaks[cycle];
+		}
+
+		//Describing function of an ideal relay: Ku = 4d / (pi * a)
+		double oscillationAmplitude = (peakToPeakSum / mPeriods.length) / 2.0;
+		mUltimateGain = (4.0 * mAmplitude) / (Math.PI * oscillationAmplitude);
+		mUltimatePeriod = periodSum / mPeriods.length;
+		mIsRunning = false;
+	}
+
+	/** @return Ultimate gain Ku, or NaN if not finished */
+	public double getUltimateGain() { return mUltimateGain; }
+
+	/** @return Ultimate period Tu in seconds, or NaN if not finished */
+	public double getUltimatePeriod() { return mUltimatePeriod; }
+
+	/**
+	 * Calculate PID gains from the measured oscillation
+	 * @param rule Tuning rule to apply
+	 * @return [kP, kI, kD], with kI and kD in per-second units
+	 */
+	public double[] getGains(TuningRule rule) {
+		return new double[] {
+			rule.kP * mUltimateGain,
+			rule.kI * mUltimateGain / mUltimatePeriod,
+			rule.kD * mUltimateGain * mUltimatePeriod
+		};
+	}
+}
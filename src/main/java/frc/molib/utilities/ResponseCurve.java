@@ -0,0 +1,38 @@
+package frc.molib.utilities;
+
+/**
+ * Precomputed response curve for shaping joystick input.
+ * <p>Blends a linear and cubic response, <code>y = (1 - k)·x + k·x³</code>, so small stick movements give finer control
+ * while full deflection still reaches full output. The curve is sampled once into a lookup table at construction
+ * and read by linear interpolation, so nothing is calculated or allocated per loop.</p>
+ */
+public class ResponseCurve {
+	private final double[] mTable;
+
+	/**
+	 * Constructor
+	 * @param cubicWeight	How much of the cubic response to blend in [0.0 to 1.0], 0.0 being fully linear
+	 * @param resolution	Number of table segments across [0.0 to 1.0]
+	 */
+	public ResponseCurve(double cubicWeight, int resolution) {
+		mTable = new double[resolution + 1];
+		for(int index = 0; index <= resolution; index++) {
+			double x = (double)index / resolution;
+			mTable[index] = ((1.0 - cubicWeight) * x) + (cubicWeight * x * x * x);
+		}
+	}
+
+	/**
+	 * Shape an input value, keeping its sign
+	 * @param value [-1.0 to 1.0] Input value, clamped to range
+	 * @return [-1.0 to 1.0] Shaped value
+	 */
+	public double calculate(double value) {
+		double magnitude = Math.min(Math.abs(value), 1.0);
+		double position = magnitude * (mTable.length - 1);
+		int index = Math.min((int)position, mTable.length - 2);
+		double fraction = position - index;
+		double shaped = mTable[index] + ((mTable[index + 1] - mTable[index]) * fraction);
+		return value < 0.0 ? -shaped : shaped;
+	}
+}
@@ -0,0 +1,118 @@
+package frc.molib.utilities;
+
+/**
+ * Fixed-capacity ring buffer of timestamped samples, stored in primitive arrays.
+ * <p>Samples must be added in increasing timestamp order. Nothing is boxed or allocated once constructed.</p>
+ */
+public class SampleHistory {
+	private final double[] mTimestamps;
+	private final double[] mValues;
+
+	private int mHead = 0;
+	private int mSize = 0;
+
+	/**
+	 * Constructor
+	 * @param capacity Number of samples kept before the oldest is overwritten
+	 */
+	public SampleHistory(int capacity) {
+		mTimestamps = new double[capacity];
+		mValues = new double[capacity];
+	}
+
+	/**
+	 * Add a new sample. Samples older than the newest one are ignored.
+	 * @param timestamp	FPGA time of the sample in seconds
+	 * @param value		Sample value
+	 */
+	public void add(double timestamp, double value) {
+		if(mSize > 0 && timestamp <= getNewestTimestamp()) return;
+
+		mTimestamps[mHead] = timestamp;
+		mValues[mHead] = value;
+		mHead = (mHead + 1) % mTimestamps.length;
+		if(mSize < mTimestamps.length) mSize++;
+	}
+
+	/** Remove all samples */
+	public void clear() {
+		mHead = 0;
+		mSize = 0;
+	}
+
+	public int size() { return mSize; }
+
+	/**
+	 * Get the time of the most recent sample
+	 * @return FPGA time in seconds, or NaN if empty
+	 */
+	public double getNewestTimestamp() {
+		if(mSize == 0) return Double.NaN;
+		return mTimestamps[index(mSize - 1)];
+	}
+
+	/**
+	 * Get the time of the oldest sample still kept
+	 * @return FPGA time in seconds, or NaN if empty
+	 */
+	public double getOldestTimestamp() {
+		if(mSize == 0) return Double.NaN;
+		return mTimestamps[index(0)];
+	}
+
+	/**
+	 * Get the most recent sample value
+	 * @return Newest value, or NaN if empty
+	 */
+	public double getNewest() {
+		if(mSize == 0) return Double.NaN;
+		return mValues[index(mSize - 1)];
+	}
+
+	/**
+	 * Look up the value at a given time, linearly interpolating between the surrounding samples.
+	 * Times outside the stored range return the nearest sample.
+	 * @param timestamp FPGA time in seconds
+	 * @return Interpolated value, or NaN if empty
+	 */
+	public double getAt(double timestamp) {
+		if(mSize == 0) return Double.NaN;
+		if(timestamp <= getOldestTimestamp()) return mValues[index(0)];
+		if(timestamp >= getNewestTimestamp()) return mValues[index(mSize - 1)];
+
+		//Binary search for the first sample after the requested time
+		int low = 0;
+		int high = mSize - 1;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(mTimestamps[index(mid)] <= timestamp) low = mid + 1;
+			else high = mid;
+		}
+
+		int after = index(low);
+		int before = index(low - 1);
+		double fraction = (timestamp - mTimestamps[before]) / (mTimestamps[after] - mTimestamps[before]);
+		return mValues[before] + (mValues[after] - mValues[before]) * fraction;
+	}
+
+	/**
+	 * Get the largest change in value across the samples since a given time
+	 * @param timestamp FPGA time in seconds
+	 * @return Max minus min of the samples since the given time, or 0.0 if there are none
+	 */
+	public double getRangeSince(double timestamp) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for(int offset = mSize - 1; offset >= 0 && mTimestamps[index(offset)] >= timestamp; offset--) {
+			double value = mValues[index(offset)];
+			if(value < min) min = value;
+			if(value > max) max = value;
+		}
+		return max >= min ? max - min : 0.0;
+	}
+
+	/** Convert an offset from the oldest sample into an array index */
+	private int index(int offset) {
+		return (mHead - mSize + offset + mTimestamps.length) % mTimestamps.length;
+	}
+}
@@ -0,0 +1,182 @@
+package frc.robot;
+
+import java.util.ArrayList;
+
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.molib.dashboard.DoubleEntry;
+import frc.molib.dashboard.Entry;
+import frc.molib.utilities.Console;
+
+/**
+ * CAN Budget: Keeps track of which status signals each subsystem actually reads, and how often,
+ * so everything else can be turned off and the bus is only as busy as the current period needs.
+ */
+public class CANBudget {
+	/** Signal update rate profiles, one per robot period */
+	public static enum Profile {
+		DISABLED("Disabled"),
+		AUTONOMOUS("Autonomous"),
+		TELEOPERATED("Teleoperated"),
+		TEST("Test");
+
+		private final String label;
+
+		private Profile(String label) { this.label = label; }
+
+		@Override public String toString() { return label; }
+	}
+
+	/** A Phoenix 6 status signal and its update rate in each profile */
+	private static class SignalBudget {
+		public final BaseStatusSignal signal;
+		public final double[] rates;
+
+		public SignalBudget(BaseStatusSignal signal, double[] rates) {
+			this.signal = signal;
+			this.rates = rates;
+		}
+	}
+
+	/** A Phoenix 5 status frame and its period in each profile */
+	private static class FrameBudget {
+		public final BaseMotorController motor;
+		public final StatusFrame frame;
+		public final int[] periods;
+
+		public FrameBudget(BaseMotorController motor, StatusFrame frame, int[] periods) {
+			this.motor = motor;
+			this.frame = frame;
+			this.periods = periods;
+		}
+	}
+
+	//Parent NetworkTable
+	private static final NetworkTable tblCANBudget = Robot.tblDiagnostics.getSubTable("CAN Budget");
+
+	//Dashboard Values
+	private static final Entry<String> entProfile = new Entry<String>(tblCANBudget, "Profile");
+	private static final DoubleEntry entEstimatedLoad = new DoubleEntry(tblCANBudget, "Estimated Load");
+	private static final DoubleEntry entMeasuredLoad = new DoubleEntry(tblCANBudget, "Measured Load");
+
+	//Constants
+	private static final double BUS_BITRATE = 1.0e6;
+	private static final double BITS_PER_FRAME = 160.0; //Extended frame with 8 data bytes, worst case bit stuffing
+	private static final int MEASURED_LOAD_INTERVAL = 25;
+
+	//Registered Budgets
+	private static final ArrayList<ParentDevice> mDevices = new ArrayList<ParentDevice>();
+	private static final ArrayList<SignalBudget> mSignals = new ArrayList<SignalBudget>();
+	private static final ArrayList<FrameBudget> mFrames = new ArrayList<FrameBudget>();
+
+	private static Profile mProfile = Profile.DISABLED;
+	private static int mLoopsSinceMeasured = 0;
+
+	/** Private constructor to prevent individual instances from being created */
+	private CANBudget() {}
+
+	/**
+	 * Register a Phoenix 6 device so any signal not budgeted for is turned off
+	 * @param device Phoenix 6 device
+	 */
+	public static void registerDevice(ParentDevice device) {
+		mDevices.add(device);
+	}
+
+	/**
+	 * Budget a Phoenix 6 status signal. A rate of 0.0 turns the signal off for that profile.
+	 * @param signal		Status signal that is read by the code
+	 * @param disabled		Update rate while Disabled, in Hz
+	 * @param autonomous	Update rate during Autonomous, in Hz
+	 * @param teleoperated	Update rate during Teleoperated, in Hz
+	 * @param test			Update rate during Test, in Hz
+	 */
+	public static void registerSignal(BaseStatusSignal signal, double disabled, double autonomous, double teleoperated, double test) {
+		mSignals.add(new SignalBudget(signal, new double[] { disabled, autonomous, teleoperated, test }));
+	}
+
+	/**
+	 * Budget a Phoenix 5 status frame
+	 * @param motor			Phoenix 5 motor controller
+	 * @param frame			Status frame to configure
+	 * @param disabled		Frame period while Disabled, in milliseconds
+	 * @param autonomous	Frame period during Autonomous, in milliseconds
+	 * @param teleoperated	Frame period during Teleoperated, in milliseconds
+	 * @param test			Frame period during Test, in milliseconds
+	 */
+	public static void registerFrame(BaseMotorController motor, StatusFrame frame, int disabled, int autonomous, int teleoperated, int test) {
+		mFrames.add(new FrameBudget(motor, frame, new int[] { disabled, autonomous, teleoperated, test }));
+	}
+
+	/**
+	 * Runs once at Robot startup, after every subsystem has registered its budget.
+	 * Applies the Disabled profile and turns off every unbudgeted Phoenix 6 signal.
+	 */
+	public static void init() {
+		Console.logMsg("CAN Budget Initializing...");
+
+		//Budgeted rates must be set before optimizing, otherwise they are turned off too
+		for(SignalBudget budget : mSignals)
+			budget.signal.setUpdateFrequency(budget.rates[Profile.DISABLED.ordinal()]);
+		for(FrameBudget budget : mFrames)
+			budget.motor.setStatusFramePeriod(budget.frame, budget.periods[Profile.DISABLED.ordinal()]);
+
+		for(ParentDevice device : mDevices)
+			device.optimizeBusUtilization();
+
+		mProfile = Profile.DISABLED;
+		Console.logMsg("CAN Budget Initialization Complete, estimated load " + String.format("%.1f", getEstimatedLoad()) + "%");
+	}
+
+	/** Initialize Dashboard values */
+	public static void initDashboard() {
+		entProfile.set(mProfile.toString());
+		entEstimatedLoad.set(getEstimatedLoad());
+	}
+
+	/** Call regularly to push new values to Dashboard */
+	public static void updateDashboard() {
+		if(++mLoopsSinceMeasured < MEASURED_LOAD_INTERVAL) return;
+		mLoopsSinceMeasured = 0;
+
+		entMeasuredLoad.set(RobotController.getCANStatus().percentBusUtilization * 100.0);
+	}
+
+	/**
+	 * Switch every budgeted signal and frame to the rates for a new profile.
+	 * <p>Sent without waiting for a response so switching periods doesn't stall the loop.</p>
+	 * @param profile New profile
+	 */
+	public static void applyProfile(Profile profile) {
+		if(profile == mProfile) return;
+		mProfile = profile;
+
+		for(SignalBudget budget : mSignals)
+			budget.signal.setUpdateFrequency(budget.rates[profile.ordinal()], 0.0);
+		for(FrameBudget budget : mFrames)
+			budget.motor.setStatusFramePeriod(budget.frame, budget.periods[profile.ordinal()], 0);
+
+		entProfile.set(profile.toString());
+		entEstimatedLoad.set(getEstimatedLoad());
+	}
+
+	/**
+	 * Estimate the bus load from the budgeted status traffic of the current profile.
+	 * <p>Treats every signal as its own frame, so this is an upper bound.</p>
+	 * @return Estimated bus load in percent
+	 */
+	public static double getEstimatedLoad() {
+		double framesPerSecond = 0.0;
+		for(SignalBudget budget : mSignals)
+			framesPerSecond += budget.rates[mProfile.ordinal()];
+		for(FrameBudget budget : mFrames)
+			framesPerSecond += 1000.0 / budget.periods[mProfile.ordinal()];
+
+		return (framesPerSecond * BITS_PER_FRAME / BUS_BITRATE) * 100.0;
+	}
+}
@@ -0,0 +1,191 @@
+package frc.robot;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.molib.dashboard.DoubleEntry;
+import frc.molib.dashboard.Entry;
+import frc.molib.dashboard.IntegerEntry;
+import frc.molib.utilities.Console;
+import frc.robot.subsystem.Chassis;
+import frc.robot.subsystem.Hanger;
+import frc.robot.subsystem.Runway;
+
+/**
+ * Power Manager: Watches battery voltage and PDH current every loop, and sheds load by lowering
+ * subsystem current limits before the robot browns out. The Hanger is never shed, then the Chassis,
+ * and the Runway goes first.
+ */
+public class PowerManager {
+	/** Load shedding levels, each with the supply current limit for every subsystem motor, in amps */
+	public static enum ShedLevel {
+		NONE("None",				60.0, 40.0, 40.0),
+		RUNWAY("Runway Shed",		60.0, 20.0, 40.0),
+		CHASSIS("Chassis Shed",		35.0, 20.0, 40.0);
+
+		private final String label;
+		public final double chassisLimit, runwayLimit, hangerLimit;
+
+		private ShedLevel(String label, double chassisLimit, double runwayLimit, double hangerLimit) {
+			this.label = label;
+			this.chassisLimit = chassisLimit;
+			this.runwayLimit = runwayLimit;
+			this.hangerLimit = hangerLimit;
+		}
+
+		@Override public String toString() { return label; }
+	}
+
+	//Parent NetworkTable
+	private static final NetworkTable tblPower = Robot.tblDiagnostics.getSubTable("Power");
+
+	//Dashboard Values
+	private static final Entry<String> entShedLevel = new Entry<String>(tblPower, "Shed Level");
+	private static final Entry<String> entLastEvent = new Entry<String>(tblPower, "Last Event");
+	private static final IntegerEntry entShedEvents = new IntegerEntry(tblPower, "Shed Events");
+	private static final DoubleEntry entBatteryVoltage = new DoubleEntry(tblPower, "Battery Voltage");
+	private static final Entry<double[]> entCurrents = new Entry<double[]>(tblPower, "Currents");
+
+	//Power Distribution
+	private static final PowerDistribution pdhMain = new PowerDistribution();
+
+	//Constants
+	//FIXME: Confirm wiring, channels the installed PDP/PDH doesn't have disable that subsystem's current reading
+	private static final int[] CHASSIS_CHANNELS = { 0, 1, 18, 19 };
+	private static final int[] RUNWAY_CHANNELS = { 2, 3, 4 };
+	private static final int[] HANGER_CHANNELS = { 16, 17 };
+	private static final double SHED_VOLTAGE = 8.0;
+	private static final double RESTORE_VOLTAGE = 10.0;
+	private static final double TOTAL_CURRENT_BUDGET = 300.0;
+	private static final double SHED_TIME = 0.06;
+	private static final double RESTORE_TIME = 1.0;
+	private static final double CHASSIS_STATOR_LIMIT = 80.0;
+	private static final double RUNWAY_STATOR_LIMIT = 60.0;
+	private static final double HANGER_STATOR_LIMIT = 80.0;
+	private static final int DASHBOARD_INTERVAL = 5;
+
+	//Power Snapshot, refreshed once per loop
+	private static double mBatteryVoltage = 12.0;
+	private static final double[] mCurrents = new double[4]; //[Total, Chassis, Runway, Hanger], NaN if the channels are invalid
+	private static boolean mIsChassisWired = false;
+	private static boolean mIsRunwayWired = false;
+	private static boolean mIsHangerWired = false;
+
+	private static ShedLevel mShedLevel = ShedLevel.NONE;
+	private static double mBrownTime = Double.NaN;
+	private static double mHealthyTime = Double.NaN;
+	private static int mShedEventCount = 0;
+	private static int mLoopsSinceDashboard = 0;
+
+	/** Private constructor to prevent individual instances from being created */
+	private PowerManager() {}
+
+	/** Runs once at Robot startup, after every subsystem has been initialized */
+	public static void init() {
+		Console.logMsg("Power Manager Initializing...");
+
+		//Only read channels the installed power distribution actually has
+		int channelCount = pdhMain.getNumChannels();
+		mIsChassisWired = validateChannels("Chassis", CHASSIS_CHANNELS, channelCount);
+		mIsRunwayWired = validateChannels("Runway", RUNWAY_CHANNELS, channelCount);
+		mIsHangerWired = validateChannels("Hanger", HANGER_CHANNELS, channelCount);
+
+		applyLimits(ShedLevel.NONE);
+		Console.logMsg("Power Manager Initialization Complete");
+	}
+
+	/** Initialize Dashboard values */
+	public static void initDashboard() {
+		entShedLevel.set(mShedLevel.toString());
+		entShedEvents.set(mShedEventCount);
+	}
+
+	/** Call regularly to push new values to Dashboard */
+	public static void updateDashboard() {
+		if(++mLoopsSinceDashboard < DASHBOARD_INTERVAL) return;
+		mLoopsSinceDashboard = 0;
+
+		entBatteryVoltage.set(mBatteryVoltage);
+		entCurrents.set(mCurrents);
+	}
+
+	/**
+	 * Get the current load shedding level
+	 * @return Active shedding level
+	 */
+	public static ShedLevel getShedLevel() {
+		return mShedLevel;
+	}
+
+	/** Call once every loop, after the sensor snapshot, to measure power draw and shed or restore load */
+	public static void periodic() {
+		double now = Timer.getFPGATimestamp();
+
+		mBatteryVoltage = RobotController.getBatteryVoltage();
+		mCurrents[0] = pdhMain.getTotalCurrent();
+		mCurrents[1] = mIsChassisWired ? sumCurrent(CHASSIS_CHANNELS) : Double.NaN;
+		mCurrents[2] = mIsRunwayWired ? sumCurrent(RUNWAY_CHANNELS) : Double.NaN;
+		mCurrents[3] = mIsHangerWired ? sumCurrent(HANGER_CHANNELS) : Double.NaN;
+
+		//Shed a level once the battery has sagged, or the draw has been over budget, for long enough
+		boolean isBrowning = mBatteryVoltage < SHED_VOLTAGE || mCurrents[0] > TOTAL_CURRENT_BUDGET || RobotController.isBrownedOut();
+		boolean isHealthy = mBatteryVoltage > RESTORE_VOLTAGE && mCurrents[0] < TOTAL_CURRENT_BUDGET;
+
+		if(!isBrowning) mBrownTime = Double.NaN;
+		else if(Double.isNaN(mBrownTime)) mBrownTime = now;
+		if(!isHealthy) mHealthyTime = Double.NaN;
+		else if(Double.isNaN(mHealthyTime)) mHealthyTime = now;
+
+		if(isBrowning && now - mBrownTime >= SHED_TIME && mShedLevel.ordinal() < ShedLevel.values().length - 1) {
+			setShedLevel(ShedLevel.values()[mShedLevel.ordinal() + 1]);
+			mBrownTime = now;
+		} else if(isHealthy && now - mHealthyTime >= RESTORE_TIME && mShedLevel != ShedLevel.NONE) {
+			setShedLevel(ShedLevel.values()[mShedLevel.ordinal() - 1]);
+			mHealthyTime = now;
+		}
+	}
+
+	/**
+	 * Check that every channel of a subsystem exists on the installed power distribution
+	 * @param name			Subsystem name, used when logging
+	 * @param channels		Channels the subsystem is wired to
+	 * @param channelCount	Number of channels on the power distribution
+	 * @return True if the subsystem's current can be read
+	 */
+	private static boolean validateChannels(String name, int[] channels, int channelCount) {
+		for(int channel : channels) {
+			if(channel < 0 || channel >= channelCount) {
+				Console.logErr("Power: " + name + " channel " + channel + " doesn't exist on a " + channelCount + " channel power distribution, its current won't be read");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static double sumCurrent(int[] channels) {
+		double current = 0.0;
+		for(int channel : channels) current += pdhMain.getCurrent(channel);
+		return current;
+	}
+
+	private static void setShedLevel(ShedLevel level) {
+		String event = (level.ordinal() > mShedLevel.ordinal() ? "Shed to " : "Restored to ") + level.toString()
+			+ String.format(" at %.2fV, %.0fA", mBatteryVoltage, mCurrents[0]);
+
+		mShedLevel = level;
+		mShedEventCount++;
+		applyLimits(level);
+
+		Console.logMsg("Power: " + event);
+		entLastEvent.set(event);
+		entShedLevel.set(level.toString());
+		entShedEvents.set(mShedEventCount);
+	}
+
+	private static void applyLimits(ShedLevel level) {
+		Chassis.configCurrentLimits(level.chassisLimit, CHASSIS_STATOR_LIMIT);
+		Runway.configCurrentLimits(level.runwayLimit, RUNWAY_STATOR_LIMIT);
+		Hanger.configCurrentLimits(level.hangerLimit, HANGER_STATOR_LIMIT);
+	}
+}
@@ -4,13 +4,20 @@
 
 package frc.robot;
 
+import java.lang.management.ManagementFactory;
+
 import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.cscore.UsbCamera;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
 import frc.molib.buttons.ButtonManager;
 import frc.molib.dashboard.ChooserManager;
+import frc.molib.utilities.Console;
+import frc.molib.utilities.LoopProfiler;
+import frc.robot.auto.Trajectories;
 import frc.robot.period.Autonomous;
 import frc.robot.period.Teleoperated;
 import frc.robot.period.Test;
@@ -26,28 +33,94 @@ import frc.robot.subsystem.Runway;
  */
 public class Robot extends TimedRobot {
 
+	/** Individually timed stages of the robot loop */
+	public static enum LoopStage {
+		SENSORS("Sensor Update"),
+		POWER("Power Manager"),
+		PERIOD("Period Logic"),
+		CHASSIS("Chassis Periodic"),
+		RUNWAY("Runway Periodic"),
+		HANGER("Hanger Periodic"),
+		DISABLED("Disabled Periodic"),
+		DASHBOARD_INIT("Dashboard Init"),
+		CHOOSERS("Chooser Update"),
+		BUTTONS("Button Update"),
+		DASHBOARD_CHASSIS("Chassis Dashboard"),
+		DASHBOARD_RUNWAY("Runway Dashboard"),
+		DASHBOARD_HANGER("Hanger Dashboard"),
+		DASHBOARD_CAN("CAN Budget Dashboard"),
+		DASHBOARD_POWER("Power Dashboard"),
+		SIMULATION("Simulation");
+
+		private final String label;
+
+		private LoopStage(String label) { this.label = label; }
+
+		@Override public String toString() { return label; }
+	}
+
 	//Global Parent NetworkTables
 	public static final NetworkTable tblMain = NetworkTableInstance.getDefault().getTable("MO Data");
 	public static final NetworkTable tblPeriod = tblMain.getSubTable("Period");
 	public static final NetworkTable tblSubsystem = tblMain.getSubTable("Subsystem");
+	public static final NetworkTable tblDiagnostics = tblMain.getSubTable("Diagnostics");
+
+	//Loop Profiler, publishes a summary once per second
+	public static final LoopProfiler<LoopStage> prfLoop = new LoopProfiler<LoopStage>(tblDiagnostics, LoopStage.class, 0.02, 50);
 
 	private static UsbCamera camMain;
 
+	//Raised from the NetworkTables listener thread, consumed on the main loop
+	private static volatile boolean mDashboardPending = false;
+
 	/**
-	 * Disable all subsystems. Turn off all motors and sit there.
+	 * Disable all subsystems. Turn off all motors and sit there, including any running characterization tests.
 	 */
 	public static void disableSubsystems() {
+		Chassis.getCharacterizer().stop();
+		Runway.getCharacterizer().stop();
+		Hanger.getCharacterizer().stop();
+
 		Chassis.disable();
 		Runway.disable();
 		Hanger.disable();
 	}
 
+	/** Refresh every subsystem's sensor snapshot. Runs once at the start of every loop. */
+	public static void updateSensors() {
+		Chassis.updateSensors();
+		Runway.updateSensors();
+		Hanger.updateSensors();
+	}
+
+	/** Initialize Dashboard values. Runs on every Dashboard connection. */
+	private static void initDashboard() {
+		Autonomous.initDashboard();
+		Teleoperated.initDashboard();
+		Test.initDashboard();
+
+		Chassis.initDashboard();
+		Runway.initDashboard();
+		Hanger.initDashboard();
+
+		CANBudget.initDashboard();
+		PowerManager.initDashboard();
+	}
+
 	@Override
 	public void robotInit() {
+		long initStartTime = RobotController.getFPGATime();
+
 		//Initialize Subsystems
 		Chassis.init();
 		Runway.init();
 		Hanger.init();
+		CANBudget.init();
+		PowerManager.init();
+
+		//Load Autonomous trajectories and routines from the deploy directory
+		Trajectories.load();
+		Autonomous.loadRoutineFiles();
 
 		//Setup Driver camera
         try{
@@ -58,32 +131,57 @@ public class Robot extends TimedRobot {
             //Just ignore camera if it fails
         }
 
-		//Wait for NetworkTables connection
-		while(!NetworkTableInstance.getDefault().isConnected());
+		//Initialize Dashboard values once a Dashboard connects, and again on every reconnect
+		NetworkTableInstance.getDefault().addConnectionListener(true, event -> {
+			if(event.is(NetworkTableEvent.Kind.kConnected)) {
+				Console.logMsg("Dashboard connected: " + event.connInfo.remote_id);
+				mDashboardPending = true;
+			}
+		});
 
-		//Initialize Dashboard values
-		Autonomous.initDashboard();
-		Teleoperated.initDashboard();
-		Test.initDashboard();
+		Console.logMsg("Robot ready in " + ((RobotController.getFPGATime() - initStartTime) / 1000) + "ms (" + ManagementFactory.getRuntimeMXBean().getUptime() + "ms since startup)");
+	}
 
-		Chassis.initDashboard();
-		Runway.initDashboard();
-		Hanger.initDashboard();
+	@Override
+	protected void loopFunc() {
+		prfLoop.beginLoop();
+		updateSensors();
+		prfLoop.mark(LoopStage.SENSORS);
+		PowerManager.periodic();
+		prfLoop.mark(LoopStage.POWER);
+		super.loopFunc();
+		prfLoop.endLoop();
 	}
 
 	@Override
 	public void robotPeriodic() {
+		if(mDashboardPending) {
+			mDashboardPending = false;
+			initDashboard();
+		}
+		prfLoop.mark(LoopStage.DASHBOARD_INIT);
+
 		ChooserManager.updateAll();
+		prfLoop.mark(LoopStage.CHOOSERS);
 		ButtonManager.updateValues();
+		prfLoop.mark(LoopStage.BUTTONS);
 
 		//Update Subsystem Dashboard values
 		Chassis.updateDashboard();
+		prfLoop.mark(LoopStage.DASHBOARD_CHASSIS);
 		Runway.updateDashboard();
+		prfLoop.mark(LoopStage.DASHBOARD_RUNWAY);
 		Hanger.updateDashboard();
+		prfLoop.mark(LoopStage.DASHBOARD_HANGER);
+		CANBudget.updateDashboard();
+		prfLoop.mark(LoopStage.DASHBOARD_CAN);
+		PowerManager.updateDashboard();
+		prfLoop.mark(LoopStage.DASHBOARD_POWER);
 	}
 
 	@Override
 	public void autonomousInit() {
+		CANBudget.applyProfile(CANBudget.Profile.AUTONOMOUS);
 		Autonomous.init();
 	}
 
@@ -92,8 +190,14 @@ public class Robot extends TimedRobot {
 		Autonomous.periodic();
 	}
 
+	@Override
+	public void autonomousExit() {
+		Autonomous.exit();
+	}
+
 	@Override
 	public void teleopInit() {
+		CANBudget.applyProfile(CANBudget.Profile.TELEOPERATED);
 		Teleoperated.init();
 	}
 
@@ -103,13 +207,22 @@ public class Robot extends TimedRobot {
 	}
 
 	@Override
-	public void disabledInit() {}
+	public void disabledInit() {
+		CANBudget.applyProfile(CANBudget.Profile.DISABLED);
+		disableSubsystems();
+		Chassis.restartGyroCalibration();
+	}
 
 	@Override
-	public void disabledPeriodic() {}
+	public void disabledPeriodic() {
+		Chassis.updateGyroCalibration();
+		Autonomous.disabledPeriodic();
+		prfLoop.mark(LoopStage.DISABLED);
+	}
 
 	@Override
 	public void testInit() {
+		CANBudget.applyProfile(CANBudget.Profile.TEST);
 		Test.init();
 	}
 
@@ -117,4 +230,11 @@ public class Robot extends TimedRobot {
 	public void testPeriodic() {
 		Test.periodic();
 	}
+
+	@Override
+	public void simulationPeriodic() {
+		Chassis.simulationPeriodic();
+		Runway.simulationPeriodic();
+		prfLoop.mark(LoopStage.SIMULATION);
+	}
 }
@@ -0,0 +1,55 @@
+package frc.robot.auto;
+
+import frc.molib.auto.Step;
+import frc.molib.auto.TimedPath;
+
+/**
+ * Everything decided before Autonomous starts, used to compile a ready-to-run plan while disabled.
+ * <p>Routines are written once for the Blue alliance, and the Planner mirrors turns and trajectories
+ * for the Red alliance as the steps are built, so nothing is decided once the match starts.</p>
+ */
+public class Planner {
+	private final double mStartDelayTime;
+	private final Step mStartDelay;
+	private final boolean mIsRed;
+
+	/**
+	 * Constructor
+	 * @param startDelay	Selected start delay in seconds
+	 * @param isRed			Whether the plan is for the Red alliance
+	 */
+	public Planner(double startDelay, boolean isRed) {
+		mStartDelayTime = startDelay;
+		mStartDelay = Steps.delay(startDelay);
+		mIsRed = isRed;
+	}
+
+	public boolean isRed() { return mIsRed; }
+
+	/** @return Selected start delay in seconds */
+	public double getStartDelay() { return mStartDelayTime; }
+
+	/** @return Step waiting for the selected start delay */
+	public Step startDelay() {
+		return mStartDelay;
+	}
+
+	/**
+	 * Turn in place, mirrored for the Red alliance
+	 * @param angle		Angle to turn in degrees on the Blue alliance
+	 * @param timeout	Time to wait for the angle before moving on regardless
+	 * @return Turn step
+	 */
+	public Step turn(double angle, double timeout) {
+		return Steps.turn(mIsRed ? -angle : angle, timeout);
+	}
+
+	/**
+	 * Look up a trajectory, mirrored for the Red alliance
+	 * @param name Name of the trajectory
+	 * @return Trajectory, or null if there isn't one by that name
+	 */
+	public TimedPath path(String name) {
+		return Trajectories.get(name, mIsRed);
+	}
+}
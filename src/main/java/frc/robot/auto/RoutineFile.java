@@ -0,0 +1,252 @@
+package frc.robot.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import frc.molib.auto.ParallelStep;
+import frc.molib.auto.Routine;
+import frc.molib.auto.Step;
+
+/**
+ * An autonomous routine read from a deploy file, so routines can be changed without rebuilding the code.
+ * <p>Files are plain text, one directive or step per line, with <code>#</code> starting a comment:</p>
+ * <pre>
+ * sequence SPEAKER_SHOT_TRAVEL     Sequence the routine is for, required
+ * position SPEAKER_WALL            Starting position the routine is for, or every position if left out
+ * delay start                      Wait for the Start Delay selected on the Dashboard
+ * delay 1.5                        Wait in seconds
+ * spinup speaker 1.0               Spin up the Reels for the Speaker or Amp, with a timeout
+ * fire 0.25                        Run the Director in seconds, then stop the Runway
+ * drive 48 2.0                     Drive in inches, with a timeout
+ * turn -150 1.0                    Turn in degrees on the Blue alliance, with a timeout
+ * pose SpeakerWall_Source          Reset the estimated pose to the start of a trajectory
+ * path SpeakerWall_Source 1.0      Follow a trajectory, with a timeout past its own length
+ * stop                             Stop the Chassis
+ * parallel                         Run the steps up to "end" at once, ending once they all have, with an optional timeout
+ * race 2.0                         Run the steps up to "end" at once, ending as soon as any one has, with an optional timeout
+ * end                              End a parallel or race group
+ * </pre>
+ * <p>Files are read, parsed, and validated once when loaded, any mistake rejects the whole file. The parsed file is
+ * then compiled from memory for each plan. Routines are written for the Blue alliance, the {@link Planner} mirrors
+ * turns and trajectories when compiling for Red.</p>
+ */
+public class RoutineFile {
+	/** File extension of routine files */
+	public static final String EXTENSION = ".auto";
+
+	private final String mName;
+	private final String mSequence;
+	private final String mPosition;
+	private final List<Function<Planner, Step>> mSteps;
+
+	private RoutineFile(String name, String sequence, String position, List<Function<Planner, Step>> steps) {
+		mName = name;
+		mSequence = sequence;
+		mPosition = position;
+		mSteps = steps;
+	}
+
+	/** @return Name of the routine, the file name without the extension */
+	public String getName() { return mName; }
+
+	/** @return Name of the Sequence the routine is for */
+	public String getSequence() { return mSequence; }
+
+	/** @return Name of the starting position the routine is for, or null for every position */
+	public String getPosition() { return mPosition; }
+
+	/**
+	 * Build a fresh routine from the parsed file, without touching the file again
+	 * @param planner Plan the routine is being compiled for
+	 * @return Routine to run
+	 */
+	public Routine compile(Planner planner) {
+		return new Routine(mName, build(mSteps, planner));
+	}
+
+	private static Step[] build(List<Function<Planner, Step>> steps, Planner planner) {
+		Step[] built = new Step[steps.size()];
+		for(int index = 0; index < built.length; index++) built[index] = steps.get(index).apply(planner);
+		return built;
+	}
+
+	/**
+	 * Read and validate a routine file
+	 * @param file File to read
+	 * @return Parsed routine file
+	 * @throws IOException If the file can't be read
+	 * @throws IllegalArgumentException If the file isn't a valid routine, with the line number in the message
+	 */
+	public static RoutineFile parse(File file) throws IOException {
+		String name = file.getName().substring(0, file.getName().length() - EXTENSION.length());
+		//Trajectories are mirrored for Red from the Blue one, so checking Blue is enough
+		return parse(name, Files.readAllLines(file.toPath()), path -> Trajectories.get(path, false) != null);
+	}
+
+	/**
+	 * Validate the lines of a routine file
+	 * @param name			Name of the routine
+	 * @param lines			Lines of the file
+	 * @param isKnownPath	Whether a trajectory name can be followed, kept separate so parsing doesn't need the deploy directory
+	 * @return Parsed routine file
+	 * @throws IllegalArgumentException If the lines aren't a valid routine, with the line number in the message
+	 */
+	static RoutineFile parse(String name, List<String> lines, Predicate<String> isKnownPath) {
+		List<Function<Planner, Step>> steps = new ArrayList<Function<Planner, Step>>();
+		String sequence = null;
+		String position = null;
+
+		//Open parallel or race group, steps are collected into it until its "end"
+		List<Function<Planner, Step>> groupSteps = null;
+		boolean isGroupRace = false;
+		double groupTimeout = Step.NO_TIMEOUT;
+		int groupLineNumber = 0;
+
+		for(int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+			String line = lines.get(lineNumber - 1);
+			int commentIndex = line.indexOf('#');
+			if(commentIndex >= 0) line = line.substring(0, commentIndex);
+			line = line.trim();
+			if(line.isEmpty()) continue;
+
+			String[] tokens = line.split("\\s+");
+			try {
+				List<Function<Planner, Step>> target = groupSteps != null ? groupSteps : steps;
+				switch(tokens[0].toLowerCase()) {
+					case "sequence":
+						requireArguments(tokens, 1);
+						requireNoGroup(groupSteps, tokens[0]);
+						sequence = tokens[1].toUpperCase();
+						break;
+					case "position":
+						requireArguments(tokens, 1);
+						requireNoGroup(groupSteps, tokens[0]);
+						position = tokens[1].toUpperCase();
+						break;
+					case "parallel":
+					case "race":
+						if(tokens.length > 2) requireArguments(tokens, 1);
+						requireNoGroup(groupSteps, tokens[0]);
+						groupSteps = new ArrayList<Function<Planner, Step>>();
+						isGroupRace = tokens[0].equalsIgnoreCase("race");
+						groupTimeout = tokens.length > 1 ? parseTime(tokens[1]) : Step.NO_TIMEOUT;
+						groupLineNumber = lineNumber;
+						break;
+					case "end": {
+						requireArguments(tokens, 0);
+						if(groupSteps == null) throw new IllegalArgumentException("\"end\" without a parallel or race group");
+						if(groupSteps.isEmpty()) throw new IllegalArgumentException("empty group");
+						List<Function<Planner, Step>> group = groupSteps;
+						boolean isRace = isGroupRace;
+						double timeout = groupTimeout;
+						steps.add(planner -> isRace ? ParallelStep.race(timeout, build(group, planner)) : ParallelStep.all(timeout, build(group, planner)));
+						groupSteps = null;
+						break;
+					}
+					case "delay":
+						requireArguments(tokens, 1);
+						if(tokens[1].equalsIgnoreCase("start")) {
+							target.add(planner -> planner.startDelay());
+						} else {
+							double time = parseTime(tokens[1]);
+							target.add(planner -> Steps.delay(time));
+						}
+						break;
+					case "spinup": {
+						requireArguments(tokens, 2);
+						double timeout = parseTime(tokens[2]);
+						if(tokens[1].equalsIgnoreCase("speaker"))
+							target.add(planner -> Steps.spinUpSpeaker(timeout));
+						else if(tokens[1].equalsIgnoreCase("amp"))
+							target.add(planner -> Steps.spinUpAmp(timeout));
+						else
+							throw new IllegalArgumentException("unknown shot \"" + tokens[1] + "\", expected speaker or amp");
+						break;
+					}
+					case "fire": {
+						requireArguments(tokens, 1);
+						double time = parseTime(tokens[1]);
+						target.add(planner -> Steps.fire(time));
+						break;
+					}
+					case "drive": {
+						requireArguments(tokens, 2);
+						double distance = parseNumber(tokens[1]);
+						double timeout = parseTime(tokens[2]);
+						target.add(planner -> Steps.drive(distance, timeout));
+						break;
+					}
+					case "turn": {
+						requireArguments(tokens, 2);
+						double angle = parseNumber(tokens[1]);
+						double timeout = parseTime(tokens[2]);
+						target.add(planner -> planner.turn(angle, timeout));
+						break;
+					}
+					case "pose": {
+						requireArguments(tokens, 1);
+						String path = parsePath(tokens[1], isKnownPath);
+						target.add(planner -> Steps.resetPose(planner.path(path)));
+						break;
+					}
+					case "path": {
+						requireArguments(tokens, 2);
+						String path = parsePath(tokens[1], isKnownPath);
+						double timeout = parseTime(tokens[2]);
+						target.add(planner -> Steps.followPath(planner.path(path), timeout));
+						break;
+					}
+					case "stop":
+						requireArguments(tokens, 0);
+						target.add(planner -> Steps.stop());
+						break;
+					default:
+						throw new IllegalArgumentException("unknown step \"" + tokens[0] + "\"");
+				}
+			} catch(IllegalArgumentException e) {
+				throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+			}
+		}
+
+		if(groupSteps != null) throw new IllegalArgumentException("line " + groupLineNumber + ": group is missing its \"end\"");
+		if(sequence == null) throw new IllegalArgumentException("missing \"sequence\" line");
+		if(steps.isEmpty()) throw new IllegalArgumentException("no steps");
+
+		return new RoutineFile(name, sequence, position, steps);
+	}
+
+	private static void requireArguments(String[] tokens, int count) {
+		if(tokens.length - 1 != count)
+			throw new IllegalArgumentException("\"" + tokens[0] + "\" takes " + count + " argument" + (count == 1 ? "" : "s") + ", found " + (tokens.length - 1));
+	}
+
+	private static void requireNoGroup(List<Function<Planner, Step>> groupSteps, String token) {
+		if(groupSteps != null) throw new IllegalArgumentException("\"" + token + "\" can't be inside a parallel or race group");
+	}
+
+	private static double parseNumber(String token) {
+		try {
+			double value = Double.parseDouble(token);
+			if(!Double.isFinite(value)) throw new NumberFormatException();
+			return value;
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("\"" + token + "\" is not a number");
+		}
+	}
+
+	private static String parsePath(String token, Predicate<String> isKnownPath) {
+		if(!isKnownPath.test(token)) throw new IllegalArgumentException("unknown trajectory \"" + token + "\"");
+		return token;
+	}
+
+	private static double parseTime(String token) {
+		double value = parseNumber(token);
+		if(value < 0.0 || value > 15.0) throw new IllegalArgumentException("time " + token + "s is outside of Autonomous [0 to 15]");
+		return value;
+	}
+}
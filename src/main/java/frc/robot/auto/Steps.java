@@ -0,0 +1,145 @@
+package frc.robot.auto;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.molib.auto.Step;
+import frc.molib.auto.TimedPath;
+import frc.robot.subsystem.Chassis;
+import frc.robot.subsystem.Runway;
+
+/** Autonomous steps for this Robot, to be assembled into {@link frc.molib.auto.Routine}s */
+public class Steps {
+	/** Private constructor to prevent individual instances from being created */
+	private Steps() {}
+
+	/**
+	 * Wait before moving on
+	 * @param time Time to wait in seconds
+	 * @return Delay step
+	 */
+	public static Step delay(double time) {
+		return new Step("Delay " + time + "s", Step.NO_TIMEOUT) {
+			@Override public boolean isFinished(double elapsed) { return elapsed >= time; }
+		};
+	}
+
+	/**
+	 * Spin the Reels up to Speaker shot speed
+	 * @param timeout Time to wait for the Reels before moving on regardless
+	 * @return Spin-up step, leaving the Reels running when it ends
+	 */
+	public static Step spinUpSpeaker(double timeout) {
+		return new Step("Spin up Reels for Speaker", timeout) {
+			@Override public void start() { Runway.enableReels_Speaker(); }
+			@Override public boolean isFinished(double elapsed) { return Runway.isAtShotSpeed(); }
+			@Override public double getError() { return Runway.getShotSpeedError(); }
+		};
+	}
+
+	/**
+	 * Spin the Reels up to Amp shot speed
+	 * @param timeout Time to wait for the Reels before moving on regardless
+	 * @return Spin-up step, leaving the Reels running when it ends
+	 */
+	public static Step spinUpAmp(double timeout) {
+		return new Step("Spin up Reels for Amp", timeout) {
+			@Override public void start() { Runway.enableReels_Amp(); }
+			@Override public boolean isFinished(double elapsed) { return Runway.isAtShotSpeed(); }
+			@Override public double getError() { return Runway.getShotSpeedError(); }
+		};
+	}
+
+	/**
+	 * Feed the Note into the spinning Reels
+	 * @param time Time to run the Director in seconds
+	 * @return Fire step, stopping the whole Runway when it ends
+	 */
+	public static Step fire(double time) {
+		return new Step("Fire", Step.NO_TIMEOUT) {
+			@Override public void start() { Runway.enableDirector(); }
+			@Override public boolean isFinished(double elapsed) { return elapsed >= time; }
+			@Override public void end(boolean isTimedOut) { Runway.disable(); }
+		};
+	}
+
+	/**
+	 * Drive straight, holding the current heading
+	 * @param distance	Distance to drive in inches
+	 * @param timeout	Time to wait for the distance before moving on regardless
+	 * @return Drive step, releasing the distance PID and stopping the Chassis when it ends
+	 */
+	public static Step drive(double distance, double timeout) {
+		return new Step("Drive " + distance + "in", timeout) {
+			@Override public void start() {
+				Chassis.resetDistance();
+				Chassis.goToDistance(distance);
+			}
+			@Override public boolean isFinished(double elapsed) { return Chassis.isAtDistance(); }
+			@Override public double getError() { return Chassis.getDistanceError(); }
+			@Override public void end(boolean isTimedOut) {
+				Chassis.disablePID_Distance();
+				Chassis.disableDrive();
+			}
+		};
+	}
+
+	/**
+	 * Turn in place
+	 * @param angle		Angle to turn in degrees, clockwise positive
+	 * @param timeout	Time to wait for the angle before moving on regardless
+	 * @return Turn step, releasing the angle PID and stopping the Chassis when it ends
+	 */
+	public static Step turn(double angle, double timeout) {
+		return new Step("Turn " + angle + "°", timeout) {
+			@Override public void start() {
+				Chassis.resetAngle();
+				Chassis.goToAngle(angle);
+			}
+			@Override public boolean isFinished(double elapsed) { return Chassis.isAtAngle(); }
+			@Override public double getError() { return Chassis.getAngleError(); }
+			@Override public void end(boolean isTimedOut) {
+				Chassis.disablePID_Angle();
+				Chassis.disableDrive();
+			}
+		};
+	}
+
+	/**
+	 * Follow a precomputed trajectory
+	 * @param path		Trajectory to follow
+	 * @param timeout	Time to allow past the trajectory's own length before moving on regardless
+	 * @return Trajectory step, stopping the Chassis when it ends
+	 */
+	public static Step followPath(TimedPath path, double timeout) {
+		return new Step("Follow " + path.getName(), path.getTotalTime() + timeout) {
+			@Override public void start() { Chassis.followTrajectory(path); }
+			@Override public boolean isFinished(double elapsed) { return Chassis.isTrajectoryFinished(); }
+			@Override public double getError() { return Chassis.getTrajectoryError(); }
+			@Override public void end(boolean isTimedOut) { Chassis.stopTrajectory(); }
+		};
+	}
+
+	/**
+	 * Reset the estimated pose to the start of a trajectory, e.g. before its first leg
+	 * @param path Trajectory to start from
+	 * @return Instant step
+	 */
+	public static Step resetPose(TimedPath path) {
+		Pose2d pose = new Pose2d(path.getX(0), path.getY(0), Rotation2d.fromRadians(path.getHeading(0)));
+		return new Step("Reset pose to " + path.getName(), Step.NO_TIMEOUT) {
+			@Override public void start() { Chassis.resetPose(pose); }
+			@Override public boolean isFinished(double elapsed) { return true; }
+		};
+	}
+
+	/**
+	 * Stop the Chassis
+	 * @return Instant step
+	 */
+	public static Step stop() {
+		return new Step("Stop Chassis", Step.NO_TIMEOUT) {
+			@Override public void start() { Chassis.disable(); }
+			@Override public boolean isFinished(double elapsed) { return true; }
+		};
+	}
+}
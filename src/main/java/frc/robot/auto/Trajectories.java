@@ -0,0 +1,61 @@
+package frc.robot.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.molib.auto.TimedPath;
+import frc.molib.utilities.Console;
+import frc.robot.subsystem.Chassis;
+
+/**
+ * Cache of the trajectories generated at build time into the deploy directory.
+ * <p>Every trajectory is read once at startup, so routines can look them up by name with no cost during Autonomous.</p>
+ */
+public class Trajectories {
+	//Constants
+	private static final File TRAJECTORY_DIRECTORY = new File(Filesystem.getDeployDirectory(), "trajectories");
+
+	//Trajectories by name, as generated for the Blue alliance and mirrored for Red
+	private static final Map<String, TimedPath> mTrajectories = new HashMap<String, TimedPath>();
+	private static final Map<String, TimedPath> mMirroredTrajectories = new HashMap<String, TimedPath>();
+
+	/** Private constructor to prevent individual instances from being created */
+	private Trajectories() {}
+
+	/** Read every trajectory file in the deploy directory */
+	public static void load() {
+		mTrajectories.clear();
+		mMirroredTrajectories.clear();
+
+		File[] files = TRAJECTORY_DIRECTORY.listFiles((directory, name) -> name.endsWith(TimedPath.EXTENSION));
+		if(files == null) {
+			Console.logErr("No trajectories found in " + TRAJECTORY_DIRECTORY.getPath() + ", run the generateTrajectories task");
+			return;
+		}
+
+		for(File file : files) {
+			try {
+				TimedPath path = TimedPath.read(file);
+				mTrajectories.put(path.getName(), path);
+				mMirroredTrajectories.put(path.getName(), path.mirrored(Chassis.FIELD_LENGTH));
+			} catch(IOException e) {
+				Console.logErr("Failed to read trajectory " + file.getName() + ": " + e.getMessage());
+			}
+		}
+
+		Console.logMsg("Loaded " + mTrajectories.size() + " trajectories");
+	}
+
+	/**
+	 * Look up a trajectory by name
+	 * @param name	Name of the trajectory, its file name without the extension
+	 * @param isRed	Whether to get the trajectory mirrored for the Red alliance
+	 * @return Trajectory, or null if there isn't one by that name
+	 */
+	public static TimedPath get(String name, boolean isRed) {
+		return (isRed ? mMirroredTrajectories : mTrajectories).get(name);
+	}
+}
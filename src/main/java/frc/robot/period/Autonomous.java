@@ -1,13 +1,27 @@
 package frc.robot.period;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.molib.auto.ParallelStep;
+import frc.molib.auto.Routine;
+import frc.molib.auto.RoutineRunner;
+import frc.molib.auto.SequentialStep;
+import frc.molib.auto.Step;
 import frc.molib.buttons.ButtonManager;
 import frc.molib.dashboard.Chooser;
+import frc.molib.dashboard.Entry;
 import frc.molib.utilities.Console;
 import frc.robot.Robot;
+import frc.robot.Robot.LoopStage;
+import frc.robot.auto.Planner;
+import frc.robot.auto.RoutineFile;
+import frc.robot.auto.Steps;
 import frc.robot.subsystem.Chassis;
 import frc.robot.subsystem.Hanger;
 import frc.robot.subsystem.Runway;
@@ -43,512 +57,274 @@ public class Autonomous {
 
     private static enum Sequence {
         /** Do absolutely nothing */
-        DO_NOTHING("Do Nothing") { 
-            @Override public void periodic() {
-                switch(mStage){
-                    case 0:
-                        Console.logMsg("Starting Sequence \"" + toString() + "\"");
-                        mStage++; break;
-                    case 1: 
-                        if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                        break;
-                    case 2:
-                        Console.logMsg("Sequence Complete");
-                        mStage++; break;
-                    default:
-                        Robot.disableSubsystems();
-                }
-            }},
+        DO_NOTHING("Do Nothing") {
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                return new Routine(toString(), 
+                    planner.startDelay());
+            }
+        },
         /** Just cross the line. <i>Designed only for {@link StartingPosition#STATION_WALL}.  */
         TRAVEL("Travel Only") {
-            @Override public void periodic() {
-                switch(mStage) {
-                    case 0:
-                        Console.logMsg("Starting Sequence \"" + toString() + "\"");
-                        mStage++; break;
-                    case 1: 
-                        if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                        break;
-                    case 2:
-                        Console.logMsg("Driving forward 8ft...");
-                        Chassis.resetDistance();
-                        Chassis.goToDistance(96.0);
-                        tmrTimeout.reset();
-                        mStage++; break;
-                    case 3:
-                        if(Chassis.isAtDistance() || tmrTimeout.get() > 2.0) mStage++;
-                        break;
-                    case 4:
-                        Console.logMsg("Distance reached, stopping drive...");
-                        Chassis.disable();
-                        mStage++; break;
-                    case 5:
-                        Console.logMsg("Sequence Complete");
-                        mStage++; break;
-                    default:
-                        Robot.disableSubsystems();
-                }
-            }},
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                return new Routine(toString(), 
+                    planner.startDelay(), Steps.drive(96.0, 2.0), Steps.stop());
+            }
+        },
         /** Cross the field, ready to go to the Source. <i>Designed only for {@link StartingPosition#STATION_WALL}.</i> */
         CROSS_FIELD("Cross Field Only") {
-            @Override public void periodic() {
-                switch(mStage) {
-                    case 0:
-                        Console.logMsg("Starting Sequence \"" + toString() + "\"");
-                        mStage++; break;
-                    case 1: 
-                        if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                        break;
-                    case 2:
-                        Console.logMsg("Driving forward 20ft...");
-                        Chassis.resetDistance();
-                        Chassis.goToDistance(240.0);
-                        tmrTimeout.reset();
-                        mStage++; break;
-                    case 3:
-                        if(Chassis.isAtDistance() || tmrTimeout.get() > 4.0) mStage++;
-                        break;
-                    case 4:
-                        Console.logMsg("Distance reached, stopping drive...");
-                        Chassis.disable();
-                        mStage++; break;
-                    case 5:
-                        Console.logMsg("Sequence Complete");
-                        mStage++; break;
-                    default:
-                        Robot.disableSubsystems();
-                }
-            }},
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                return new Routine(toString(), 
+                    planner.startDelay(), Steps.drive(240.0, 4.0), Steps.stop());
+            }
+        },
         /** Shoot into the Speaker and do nothing else. */
         SPEAKER_SHOT_STAY("Speaker Shot & Stay") {
-            @Override public void periodic() {
-                switch(mStage) {
-                    case 0:
-                        Console.logMsg("Starting Sequence \"" + toString() + "\"");
-                        mStage++; break;
-                    case 1: 
-                        if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                        break;
-                    case 2:
-                        Console.logMsg("Enabling Reels...");
-                        Runway.enableReels_Speaker();
-                        tmrTimeout.reset();
-                        mStage++; break;
-                    case 3:
-                        if(tmrTimeout.get() > 0.25) mStage++;
-                        break;
-                    case 4:
-                        Console.logMsg("Time reached. Firing...");
-                        Runway.enableDirector();
-                        tmrTimeout.reset();
-                        mStage++; break;
-                    case 5:
-                        if(tmrTimeout.get() > 0.25) mStage++;
-                        break;
-                    case 6:
-                        Console.logMsg("Time reached, stopping Runway...");
-                        Runway.disable();
-                        mStage++; break;
-                    case 7:
-                        Console.logMsg("Sequence Complete");
-                        mStage++; break;
-                    default:
-                        Robot.disableSubsystems();
-                }
-            }},
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                return new Routine(toString(), 
+                    spinUp(planner), Steps.fire(FIRE_TIME));
+            }
+        },
         /** Shoot into the Speaker, turn around, and drive forward just enough to cross the Travel line. */
         SPEAKER_SHOT_TRAVEL("Speaker Shot & Travel") {
-            @Override public void periodic() {
-                switch(mSelectedStartingPosition){
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                switch(position) {
                     case SPEAKER_STAGE: //FIXME: Determine if simple sequence is possible or if seperate one is necessary
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), Steps.fire(FIRE_TIME), Steps.drive(96.0, 4.0), Steps.stop()); //FIXME: Determine proper distance
                     case SPEAKER_CENTER:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Starting Sequence \"" + toString() + "\" [" + mSelectedStartingPosition.toString() + "]");
-                                mStage++; break;
-                            case 1: 
-                                if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                                break;
-                            case 2:
-                                Console.logMsg("Enabling Reels...");
-                                Runway.enableReels_Speaker();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 3:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 4:
-                                Console.logMsg("Time reached. Firing...");
-                                Runway.enableDirector();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 5:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 6:
-                                Console.logMsg("Time reached, stopping Runway and driving back 8/4ft...");
-                                Runway.disable();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(mSelectedStartingPosition == StartingPosition.SPEAKER_STAGE ? 96.0 : 48.0); //FIXME: Determine proper distance
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 7:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > (mSelectedStartingPosition == StartingPosition.SPEAKER_STAGE ? 4.0 : 2.0)) mStage++;
-                                break;
-                            case 8:
-                                Console.logMsg("Distance reached, stopping drive...");
-                                Chassis.disable();
-                                mStage++; break;
-                            case 9:
-                                Console.logMsg("Sequence Complete");
-                                mStage++; break;
-                            default:
-                                Robot.disableSubsystems();
-                        } break;
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), Steps.fire(FIRE_TIME), Steps.drive(48.0, 2.0), Steps.stop()); //FIXME: Determine proper distance
                     case SPEAKER_WALL:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Starting Sequence \"" + toString() + "\" [" + StartingPosition.SPEAKER_WALL.toString() + "]");
-                                mStage++; break;
-                            case 1: 
-                                if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                                break;
-                            case 2:
-                                Console.logMsg("Enabling Reels...");
-                                Runway.enableReels_Speaker();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 3:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 4:
-                                Console.logMsg("Time reached. Firing...");
-                                Runway.enableDirector();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 5:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 6:
-                                Console.logMsg("Time reached, stopping Runway and driving back 1ft...");
-                                Runway.disable();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(12.0); //FIXME: Determine if far enough to turn
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 7:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 0.5) mStage++;
-                                break;
-                            case 8:
-                                Console.logMsg("Distance reached, stopping drive and turning 150°...");
-                                Chassis.disablePID_Distance();
-                                Chassis.resetAngle();
-                                Chassis.goToAngle(DriverStation.getAlliance().get() == Alliance.Red ? 150.0 : -150.0); //FIXME: Determine proper angle
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 9:
-                                if(Chassis.isAtAngle() || tmrTimeout.get() > 1.0) mStage++;
-                                break;
-                            case 10:
-                                Console.logMsg("Angle reached, stopping turn and driving forward 4ft...");
-                                Chassis.disablePID_Angle();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(48.0);
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 11:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 2.0) mStage++;
-                                break;
-                            case 12:
-                                Console.logMsg("Distance reached, stopping drive...");
-                                Chassis.disable();
-                                mStage++; break;
-                            case 13:
-                                Console.logMsg("Sequence Complete");
-                                mStage++; break;
-                            default:
-                                Robot.disableSubsystems();
-                        } break;
-                    default:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Invalid Starting Position selected for Sequence \"" + toString());
-                                mStage++;
-                            default:
-                                Robot.disableSubsystems();
-                        }
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), 
+                            Steps.fire(FIRE_TIME), Steps.drive(12.0, 0.5), //FIXME: Determine if far enough to turn
+                            planner.turn(-150.0, 1.0), //FIXME: Determine proper angle
+                            Steps.drive(48.0, 2.0), Steps.stop());
+                    default: return null;
                 }
-            }},
+            }
+        },
         /** Shoot into the Speaker, turn around, and drive as far across the field as far as possible, ready to go to the Source. */
-        SPEAKER_SHOT_FIELD("Speaker Shot & Cross Field"){
-            @Override public void periodic() {
-                switch(mSelectedStartingPosition) {
+        SPEAKER_SHOT_FIELD("Speaker Shot & Cross Field") {
+            @Override public Routine compile(StartingPosition position, Planner planner) {
+                switch(position) {
                     case SPEAKER_STAGE:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Starting Sequence \"" + toString() + "\" [" + StartingPosition.SPEAKER_CENTER.toString() + "]");
-                                mStage++; break;
-                            case 1: 
-                                if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                                break;
-                            case 2:
-                                Console.logMsg("Enabling Reels...");
-                                Runway.enableReels_Speaker();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 3:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 4:
-                                Console.logMsg("Time reached. Firing...");
-                                Runway.enableDirector();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 5:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 6:
-                                Console.logMsg("Time reached, stopping Runway and driving back 1ft...");
-                                Runway.disable();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(12.0); //FIXME: Determine if far enough to turn
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 7:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 0.5) mStage++;
-                                break;
-                            case 8:
-                                Console.logMsg("Distance reached, turning 30°...");
-                                Chassis.disablePID_Distance();
-                                Chassis.resetAngle();
-                                Chassis.goToAngle(DriverStation.getAlliance().get() == Alliance.Red ? -30.0 : 30.0); //FIXME: Determine proper angle
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 9:
-                                if(Chassis.isAtAngle() || tmrTimeout.get() > 1.0) mStage++;
-                                break;
-                            case 10:
-                                Console.logMsg("Angle reached, driving back 5ft...");
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(60.0); //FIXME: Determine proper distance
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 11:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 2.5) mStage++;
-                                break;
-                            case 12:
-                                Console.logMsg("Distance reached, stopping drive and turning 130°...");
-                                Chassis.disablePID_Distance();
-                                Chassis.resetAngle();
-                                Chassis.goToAngle(DriverStation.getAlliance().get() == Alliance.Red ? -130.0 : 130.0); //FIXME: Determine proper angle
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 13:
-                                if(Chassis.isAtAngle() || tmrTimeout.get() > 1.0) mStage++;
-                                break;
-                            case 14:
-                                Console.logMsg("Angle reached, stopping turn and driving forward 10ft...");
-                                Chassis.disablePID_Angle();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(120.0);
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 15:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 5.0) mStage++;
-                                break;
-                            case 16:
-                                Console.logMsg("Distance reached, stopping drive...");
-                                Chassis.disable();
-                                mStage++; break;
-                            case 17:
-                                Console.logMsg("Sequence Complete");
-                                mStage++; break;
-                            default:
-                                Robot.disableSubsystems();
-                        } break;
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), 
+                            Steps.fire(FIRE_TIME), Steps.drive(12.0, 0.5), //FIXME: Determine if far enough to turn
+                            planner.turn(30.0, 1.0), //FIXME: Determine proper angle
+                            Steps.drive(60.0, 2.5), //FIXME: Determine proper distance
+                            planner.turn(130.0, 1.0), //FIXME: Determine proper angle
+                            Steps.drive(120.0, 5.0), Steps.stop());
                     case SPEAKER_CENTER:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Starting Sequence \"" + toString() + "\" [" + StartingPosition.SPEAKER_CENTER.toString() + "]");
-                                mStage++; break;
-                            case 1: 
-                                if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                                break;
-                            case 2:
-                                Console.logMsg("Enabling Reels...");
-                                Runway.enableReels_Speaker();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 3:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 4:
-                                Console.logMsg("Time reached. Firing...");
-                                Runway.enableDirector();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 5:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 6:
-                                Console.logMsg("Time reached, stopping Runway and driving back 10ft...");
-                                Runway.disable();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(120.0); //FIXME: Determine if far enough to turn
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 7:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 5.0) mStage++;
-                                break;
-                            case 8:
-                                Console.logMsg("Distance reached, stopping drive and turning 150°...");
-                                Chassis.disablePID_Distance();
-                                Chassis.resetAngle();
-                                Chassis.goToAngle(DriverStation.getAlliance().get() == Alliance.Red ? 150.0 : -150.0); //FIXME: Determine proper angle
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 9:
-                                if(Chassis.isAtAngle() || tmrTimeout.get() > 1.0) mStage++;
-                                break;
-                            case 10:
-                                Console.logMsg("Angle reached, stopping turn and driving forward 8ft...");
-                                Chassis.disablePID_Angle();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(96.0);
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 11:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 4.0) mStage++;
-                                break;
-                            case 12:
-                                Console.logMsg("Distance reached, stopping drive...");
-                                Chassis.disable();
-                                mStage++; break;
-                            case 13:
-                                Console.logMsg("Sequence Complete");
-                                mStage++; break;
-                            default:
-                                Robot.disableSubsystems();
-                        } break;
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), 
+                            Steps.fire(FIRE_TIME), Steps.drive(120.0, 5.0), //FIXME: Determine if far enough to turn
+                            planner.turn(-150.0, 1.0), //FIXME: Determine proper angle
+                            Steps.drive(96.0, 4.0), Steps.stop());
                     case SPEAKER_WALL:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Starting Sequence \"" + toString() + "\" [" + StartingPosition.SPEAKER_CENTER.toString() + "]");
-                                mStage++; break;
-                            case 1: 
-                                if(tmrTimeout.get() > mSelectedStartDelay.time) mStage++;
-                                break;
-                            case 2:
-                                Console.logMsg("Enabling Reels...");
-                                Runway.enableReels_Speaker();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 3:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 4:
-                                Console.logMsg("Time reached. Firing...");
-                                Runway.enableDirector();
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 5:
-                                if(tmrTimeout.get() > 0.25) mStage++;
-                                break;
-                            case 6:
-                                Console.logMsg("Time reached, stopping Runway and driving back 5ft...");
-                                Runway.disable();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(60.0); //FIXME: Determine if far enough to turn
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 7:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 2.5) mStage++;
-                                break;
-                            case 8:
-                                Console.logMsg("Distance reached, stopping drive and turning 130°...");
-                                Chassis.disablePID_Distance();
-                                Chassis.resetAngle();
-                                Chassis.goToAngle(DriverStation.getAlliance().get() == Alliance.Red ? 130.0 : -130.0); //FIXME: Determine proper angle
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 9:
-                                if(Chassis.isAtAngle() || tmrTimeout.get() > 1.0) mStage++;
-                                break;
-                            case 10:
-                                Console.logMsg("Angle reached, stopping turn and driving forward 15ft...");
-                                Chassis.disablePID_Angle();
-                                Chassis.resetDistance();
-                                Chassis.goToDistance(180.0);
-                                tmrTimeout.reset();
-                                mStage++; break;
-                            case 11:
-                                if(Chassis.isAtDistance() || tmrTimeout.get() > 7.5) mStage++;
-                                break;
-                            case 12:
-                                Console.logMsg("Distance reached, stopping drive...");
-                                Chassis.disable();
-                                mStage++; break;
-                            case 13:
-                                Console.logMsg("Sequence Complete");
-                                mStage++; break;
-                            default:
-                                Robot.disableSubsystems();
-                        } break;
-                    default:
-                        switch(mStage) {
-                            case 0:
-                                Console.logMsg("Invalid Starting Position selected for Sequence \"" + toString());
-                                mStage++;
-                            default:
-                                Robot.disableSubsystems();
-                        }
+                        return new Routine(toString() + " [" + position + "]", 
+                            spinUp(planner), 
+                            Steps.fire(FIRE_TIME), Steps.drive(60.0, 2.5), //FIXME: Determine if far enough to turn
+                            planner.turn(-130.0, 1.0), //FIXME: Determine proper angle
+                            Steps.drive(180.0, 7.5), Steps.stop());
+                    default: return null;
                 }
-            }};
+            }
+        },
+        /** Run a routine from a deploy file, see {@link RoutineFile}. */
+        CUSTOM("Custom (Deploy File)") {
+            @Override public Routine compile(StartingPosition position, Planner planner) { return null; }
+        };
 
         private final String label;
-        private static int mStage = 0;
-        private static Timer tmrTimeout = new Timer();
-        
-        private Sequence(String label) { this.label = label; }
 
-        public void init() { 
-            mStage = 0; 
-            tmrTimeout.reset(); 
-            tmrTimeout.start(); 
-            Chassis.enableBrake();
-        }
+        private Sequence(String label) { this.label = label; }
 
-        public abstract void periodic();
+        /**
+         * Build the built-in routine for this Sequence from a starting position, with angles written for the Blue alliance
+         * @param position  Where the Robot starts the match
+         * @param planner   Plan being compiled, mirroring for the Red alliance
+         * @return Routine to run, or null if the Sequence isn't designed for that position
+         */
+        public abstract Routine compile(StartingPosition position, Planner planner);
 
         @Override public String toString() { return label; }
     }
 
+    //Constants
+    private static final double SPIN_UP_TIME = 1.0; //Time allowed for the Reels to reach shot speed
+    private static final double FIRE_TIME = 0.25;
+
+    //Routine Files, replacing the built-in routine for their Sequence and starting position
+    private static final File ROUTINE_DIRECTORY = new File(Filesystem.getDeployDirectory(), "autos");
+    private static final int ROUTINE_CHECK_INTERVAL = 50; //Loops between checks for changed files while disabled
+    private static final RoutineFile[][] mRoutineFiles = new RoutineFile[Sequence.values().length][StartingPosition.values().length];
+    private static long mRoutineFilesSignature = 0;
+    private static int mLoopsSinceRoutineCheck = 0;
+
+    //Compiled Plan, rebuilt while disabled whenever a selection, the alliance, or the routine files change
+    private static Routine mPlannedRoutine = null;
+    private static Sequence mPlannedSequence = null;
+    private static StartingPosition mPlannedStartingPosition = null;
+    private static StartDelay mPlannedStartDelay = null;
+    private static Alliance mPlannedAlliance = null;
+    private static boolean mIsPlanStale = true;
+
     //Parent NetworkTable
     private static final NetworkTable tblAutonomous = Robot.tblPeriod.getSubTable("Autonomous");
 
+    //Routine Runner, publishing each routine's stage summary
+    private static final RoutineRunner rnrRoutine = new RoutineRunner(tblAutonomous);
+
     //Dashboard Objects
     private static Chooser<StartingPosition> chsStartingPosisiton = new Chooser<StartingPosition>(tblAutonomous, "Starting Position", StartingPosition.STATION_WALL);
     private static Chooser<StartDelay> chsStartDelay = new Chooser<StartDelay>(tblAutonomous, "Start Delay", StartDelay.ZERO);
     private static Chooser<Sequence> chsSequence = new Chooser<Sequence>(tblAutonomous, "Sequence", Sequence.DO_NOTHING);
 
-    //Dashboard selections
-    private static StartingPosition mSelectedStartingPosition;
-    private static StartDelay mSelectedStartDelay;
-    private static Sequence mSelectedSequence;
+    //Dashboard Values
+    private static final Entry<String> entPlannedRoutine = new Entry<String>(tblAutonomous, "Planned Routine");
 
     /** Private constructor to prevent individual instances from being created */
     private Autonomous() {}
 
-    /** Runs once when Teleoperated is enabled to read period options from the Dashboard */
+    /** Runs once when Autonomous is enabled to start the plan compiled while disabled */
     public static void init() {
         //Clear any flags on controls
         ButtonManager.clearFlags();
 
-        mSelectedStartingPosition = chsStartingPosisiton.get();
-        mSelectedStartDelay = chsStartDelay.get();
-        mSelectedSequence = chsSequence.get();
+        //Normally already planned while disabled, this only does work if the selections changed since
+        updatePlan();
+
+        Chassis.enableBrake();
+        if(mPlannedRoutine != null) rnrRoutine.start(mPlannedRoutine);
+        else rnrRoutine.stop();
+    }
+
+    /** Runs once when Autonomous ends, stopping and reporting any routine that didn't finish in time */
+    public static void exit() {
+        rnrRoutine.stop();
+    }
+
+    /**
+     * Compile the selected Sequence, starting position, start delay, and alliance into a ready-to-run routine,
+     * doing nothing unless one of them or the routine files changed since the last plan
+     */
+    private static void updatePlan() {
+        Sequence sequence = chsSequence.get();
+        StartingPosition position = chsStartingPosisiton.get();
+        StartDelay startDelay = chsStartDelay.get();
+        Alliance alliance = DriverStation.getAlliance().orElse(null);
 
-        mSelectedSequence.init();
+        if(!mIsPlanStale && sequence == mPlannedSequence && position == mPlannedStartingPosition 
+            && startDelay == mPlannedStartDelay && alliance == mPlannedAlliance) return;
+
+        mIsPlanStale = false;
+        mPlannedSequence = sequence;
+        mPlannedStartingPosition = position;
+        mPlannedStartDelay = startDelay;
+        mPlannedAlliance = alliance;
+
+        //Plan for Blue until the alliance is known, the plan is rebuilt as soon as it is
+        Planner planner = new Planner(startDelay.time, alliance == Alliance.Red);
+        mPlannedRoutine = null;
+
+        //Prefer a routine loaded from a deploy file, already parsed so it is compiled from memory
+        RoutineFile routineFile = mRoutineFiles[sequence.ordinal()][position.ordinal()];
+        mPlannedRoutine = routineFile != null ? routineFile.compile(planner) : sequence.compile(position, planner);
+
+        String allianceName = alliance != null ? alliance.toString() : "unknown (planned as Blue)";
+        if(mPlannedRoutine != null) {
+            Console.logMsg("Planned autonomous \"" + mPlannedRoutine.getName() + "\" for alliance " + allianceName + " with a " + startDelay.time + "s start delay");
+            entPlannedRoutine.set(mPlannedRoutine.getName() + (planner.isRed() ? " (Red)" : " (Blue)"));
+        } else {
+            Console.logMsg("Invalid Starting Position selected for Sequence \"" + sequence.toString() + "\"");
+            entPlannedRoutine.set("Invalid Starting Position");
+        }
+    }
+
+    /** Parse and validate every routine file in the deploy directory, replacing any loaded before */
+    public static void loadRoutineFiles() {
+        for(RoutineFile[] routineFiles : mRoutineFiles) Arrays.fill(routineFiles, null);
+        mRoutineFilesSignature = getRoutineFilesSignature();
+        mIsPlanStale = true;
+
+        File[] files = ROUTINE_DIRECTORY.listFiles((directory, name) -> name.endsWith(RoutineFile.EXTENSION));
+        if(files == null) return;
+        Arrays.sort(files);
+
+        //Files are read and validated once here and compiled into a plan later, a routine for a single position always wins over one for every position
+        int loadedCount = 0;
+        for(File file : files) {
+            try {
+                RoutineFile routineFile = RoutineFile.parse(file);
+                Sequence sequence = Sequence.valueOf(routineFile.getSequence());
+                if(routineFile.getPosition() == null) {
+                    for(int position = 0; position < mRoutineFiles[sequence.ordinal()].length; position++)
+                        if(mRoutineFiles[sequence.ordinal()][position] == null) mRoutineFiles[sequence.ordinal()][position] = routineFile;
+                } else {
+                    mRoutineFiles[sequence.ordinal()][StartingPosition.valueOf(routineFile.getPosition()).ordinal()] = routineFile;
+                }
+                loadedCount++;
+            } catch(IOException | IllegalArgumentException e) {
+                Console.logErr("Rejected autonomous file " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        Console.logMsg("Loaded " + loadedCount + " of " + files.length + " autonomous files");
+    }
+
+    /**
+     * Summarize the routine files so changes can be spotted without reading them
+     * @return Value that changes whenever a file is added, removed, or modified
+     */
+    private static long getRoutineFilesSignature() {
+        File[] files = ROUTINE_DIRECTORY.listFiles((directory, name) -> name.endsWith(RoutineFile.EXTENSION));
+        if(files == null) return 0;
+
+        long signature = files.length;
+        for(File file : files) signature = (signature * 31) + file.getName().hashCode() + file.lastModified() + file.length();
+        return signature;
+    }
+
+    /** Call regularly while disabled to reload routine files that have changed, and keep the plan up to date */
+    public static void disabledPeriodic() {
+        if(++mLoopsSinceRoutineCheck >= ROUTINE_CHECK_INTERVAL) {
+            mLoopsSinceRoutineCheck = 0;
+            if(getRoutineFilesSignature() != mRoutineFilesSignature) {
+                Console.logMsg("Autonomous files changed, reloading...");
+                loadRoutineFiles();
+            }
+        }
+
+        updatePlan();
+    }
+
+    /**
+     * Spin up the Reels over the last moments of the start delay, so they reach shot speed as it ends
+     * without running at speed for the whole delay
+     * @param planner Plan being compiled
+     * @return Parallel step ending when both the delay and the spin-up have ended
+     */
+    private static Step spinUp(Planner planner) {
+        double idleTime = Math.max(planner.getStartDelay() - SPIN_UP_TIME, 0.0);
+        return ParallelStep.all(Step.NO_TIMEOUT, planner.startDelay(), new SequentialStep(Step.NO_TIMEOUT, Steps.delay(idleTime), Steps.spinUpSpeaker(SPIN_UP_TIME)));
+    }
+
+    /**
+     * Get the runner of the Autonomous routine, to report on the routine once it has run
+     * @return Routine runner
+     */
+    public static RoutineRunner getRoutineRunner() {
+        return rnrRoutine;
+    }
+
+    /**
+     * Get the Start Delay the current plan was compiled with
+     * @return Delay in seconds, 0.0 if nothing has been planned
+     */
+    public static double getPlannedStartDelay() {
+        return mPlannedStartDelay != null ? mPlannedStartDelay.time : 0.0;
     }
 
     /** Initialize Dashboard values */
@@ -562,11 +338,17 @@ public class Autonomous {
     
     /** Call regularly to update PIDs, interpret sensor input, and apply buffered values to components. */
     public static void periodic() {
-        mSelectedSequence.periodic();
+        rnrRoutine.periodic();
+        if(rnrRoutine.isFinished()) Robot.disableSubsystems();
+
+        Robot.prfLoop.mark(LoopStage.PERIOD);
 
         //Update Subsystems
         Chassis.periodic();
+        Robot.prfLoop.mark(LoopStage.CHASSIS);
 		Runway.periodic();
+        Robot.prfLoop.mark(LoopStage.RUNWAY);
         Hanger.periodic();
+        Robot.prfLoop.mark(LoopStage.HANGER);
     }
 }
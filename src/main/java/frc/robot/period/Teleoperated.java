@@ -1,12 +1,15 @@
 package frc.robot.period;
 
+import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.wpilibj.Timer;
 import frc.molib.buttons.Button;
 import frc.molib.buttons.ButtonManager;
 import frc.molib.dashboard.Chooser;
 import frc.molib.hid.XboxController;
+import frc.molib.utilities.CurvatureDrive;
+import frc.molib.utilities.ResponseCurve;
 import frc.robot.Robot;
+import frc.robot.Robot.LoopStage;
 import frc.robot.subsystem.Chassis;
 import frc.robot.subsystem.Hanger;
 import frc.robot.subsystem.Runway;
@@ -52,25 +55,54 @@ public class Teleoperated {
         public String toString() { return label; }
 	}
 
+    /** Whether stick inputs command Chassis power directly, or wheel speeds held by the motor controllers */
+    private static enum ChassisDriveControl {
+        POWER("Power - Open Loop"),
+        VELOCITY("Velocity - Closed Loop");
+
+        public final String label;
+
+        private ChassisDriveControl(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
     //Parent NetworkTable
     private static final NetworkTable tblTeleoperated = Robot.tblPeriod.getSubTable("Teleoperated");
 
     //Choosers
     private static Chooser<ChassisPowerScale> chsChassisPowerScale = new Chooser<ChassisPowerScale>(tblTeleoperated, "Chassis Power Scale", ChassisPowerScale.NORMAL);
     private static Chooser<ChassisControlMode> chsChassisControlMode = new Chooser<ChassisControlMode>(tblTeleoperated, "Chassis Control Mode", ChassisControlMode.TANK);
+    private static Chooser<ChassisDriveControl> chsChassisDriveControl = new Chooser<ChassisDriveControl>(tblTeleoperated, "Chassis Drive Control", ChassisDriveControl.POWER);
 
     //Chooser Selections
 	private static ChassisPowerScale mSelectedChassisPowerScale;
 	private static ChassisControlMode mSelectedChassisControlMode;
+	private static ChassisDriveControl mSelectedChassisDriveControl;
 
     //Controllers
     private static final XboxController ctlDriver = new XboxController(0);
     private static final XboxController ctlOperator = new XboxController(1);
 
+    //Drive Input Shaping: deadband, response curve, power scale, slew rate, then the selected control mode
+    private static final double DRIVE_DEADBAND = 0.08;
+    private static final double THROTTLE_SLEW_RATE = 3.0; //Full stick range per second
+    private static final double STEERING_SLEW_RATE = 6.0; //Full stick range per second
+    private static final ResponseCurve crvThrottle = new ResponseCurve(0.5, 64);
+    private static final ResponseCurve crvSteering = new ResponseCurve(0.7, 64);
+    private static final SlewRateLimiter fltDrive_Left = new SlewRateLimiter(THROTTLE_SLEW_RATE);
+    private static final SlewRateLimiter fltDrive_Right = new SlewRateLimiter(THROTTLE_SLEW_RATE);
+    private static final SlewRateLimiter fltDrive_Steering = new SlewRateLimiter(STEERING_SLEW_RATE);
+    private static final CurvatureDrive drvCurvature = new CurvatureDrive(1.0, 3.0);
+
     //Driver Buttons
     private static final Button btnDrive_Slow = new Button() { @Override public boolean get() { return ctlDriver.getRightBumper(); } };
     private static final Button btnDrive_Boost = new Button() { @Override public boolean get() { return ctlDriver.getLeftTrigger() || ctlDriver.getRightTrigger(); } };
     private static final Button btnDrive_Brake = new Button() { @Override public boolean get() { return ctlDriver.getLeftBumper(); } };
+    private static final Button btnDrive_QuickTurn = new Button() { @Override public boolean get() { return ctlDriver.getAButton(); } };
     private static final Button btnAmpShot = new Button() { @Override public boolean get() { return ctlDriver.getPOV() == 180; } };
     private static final Button btnSpeakerShot = new Button() { @Override public boolean get() { return ctlDriver.getPOV() == 0; } };
 
@@ -80,12 +112,7 @@ public class Teleoperated {
     private static final Button btnGroundPickUp_Lower = new Button() { @Override public boolean get() { return ctlOperator.getAButton(); } };
     private static final Button btnHanger_Extend = new Button() { @Override public boolean get() { return ctlOperator.getRightTrigger(); } };
     private static final Button btnHanger_Retract = new Button() { @Override public boolean get() { return ctlOperator.getRightBumper(); } };
-
-    //Timers
-    private static final Timer tmrShootDelay = new Timer();
-
-    //Constants
-    private static final double SHOOT_DELAY = 0.1;
+    private static final Button btnHanger_Zero = new Button() { @Override public boolean get() { return ctlOperator.getBackButton(); } };
 
     /** Private constructor to prevent individual instances from being created */
     private Teleoperated() {}
@@ -98,26 +125,34 @@ public class Teleoperated {
         //Get selected options from Dashboard
 		mSelectedChassisPowerScale = chsChassisPowerScale.get();
 		mSelectedChassisControlMode = chsChassisControlMode.get();
-
-        //Start Shoot Delay Timer
-        tmrShootDelay.reset();
-        tmrShootDelay.start();
+		mSelectedChassisDriveControl = chsChassisDriveControl.get();
+
+        //Start the drive input pipeline from rest
+        ctlDriver.configDeadzoneThreshold(DRIVE_DEADBAND);
+        fltDrive_Left.reset(0.0);
+        fltDrive_Right.reset(0.0);
+        fltDrive_Steering.reset(0.0);
+        drvCurvature.reset();
     }
 
     /** Initialize Dashboard values */
     public static void initDashboard() {
         chsChassisPowerScale.init();
         chsChassisControlMode.init();
+        chsChassisDriveControl.init();
     }
 
 	/**
      * Apply Tank Drive style of control to the Chassis
-     * @param powerLeft [-1.0 to 1.0] Power to left side of the Chassis
-     * @param powerRight [-1.0 to 1.0] Power to right side of the Chassis
+     * @param powerLeft [-1.0 to 1.0] Power to left side of the Chassis, or fraction of top speed under velocity control
+     * @param powerRight [-1.0 to 1.0] Power to right side of the Chassis, or fraction of top speed under velocity control
      */
     public static void setTankDrive(double powerLeft, double powerRight){
         //Chassis.setDrive(Math.signum(powerLeft) * (powerLeft * powerLeft), Math.signum(powerRight) * (powerRight * powerRight));
-        Chassis.setDrivePower(powerLeft, powerRight);
+        if(mSelectedChassisDriveControl == ChassisDriveControl.VELOCITY)
+            Chassis.setDriveSpeed(powerLeft, powerRight);
+        else
+            Chassis.setDrivePower(powerLeft, powerRight);
     }
 
     /**
@@ -142,11 +177,21 @@ public class Teleoperated {
         else
             chassisScale = mSelectedChassisPowerScale.standard;
 
-		//Chassis Drive Control
+		//Chassis Drive Control, sticks are already deadened by the controller
+        double throttle = crvThrottle.calculate(ctlDriver.getLeftY());
 		switch(mSelectedChassisControlMode){
-			case TANK: setTankDrive(ctlDriver.getLeftY() * chassisScale, ctlDriver.getRightY() * chassisScale); break;
-			case CHEEZY: setArcadeDrive(ctlDriver.getLeftY() * chassisScale, ctlDriver.getLeftX() * chassisScale); break;
-			case ARCADE: setArcadeDrive(ctlDriver.getLeftY() * chassisScale, ctlDriver.getRightX() * chassisScale); break;
+			case TANK: 
+                setTankDrive(fltDrive_Left.calculate(throttle * chassisScale), fltDrive_Right.calculate(crvThrottle.calculate(ctlDriver.getRightY()) * chassisScale)); 
+                break;
+			case CHEEZY: 
+                //Steering isn't slew limited here, negative inertia needs the sharp changes
+                //Turning already scales with throttle, so the power scale is applied once to the outputs
+                drvCurvature.calculate(fltDrive_Left.calculate(throttle), crvSteering.calculate(ctlDriver.getLeftX()), btnDrive_QuickTurn.get());
+                setTankDrive(drvCurvature.getLeft() * chassisScale, drvCurvature.getRight() * chassisScale); 
+                break;
+			case ARCADE: 
+                setArcadeDrive(fltDrive_Left.calculate(throttle * chassisScale), fltDrive_Steering.calculate(crvSteering.calculate(ctlDriver.getRightX()) * chassisScale)); 
+                break;
         }
 
         //Chassis Brake
@@ -159,34 +204,37 @@ public class Teleoperated {
         if(btnAmpShot.get()) {
             Runway.disableLEDs();
             Runway.enableReels_Amp();
-            if(tmrShootDelay.get() > SHOOT_DELAY) Runway.enableDirector();
+            if(Runway.isAtShotSpeed()) Runway.enableDirector();
         } else if(btnSpeakerShot.get()) {
             Runway.disableLEDs();
             Runway.enableReels_Speaker();
-            if(tmrShootDelay.get() > SHOOT_DELAY) Runway.enableDirector();
+            if(Runway.isAtShotSpeed()) Runway.enableDirector();
         } else if(btnIntake.get()) {
             Runway.enableLEDs();
             Runway.reverseReels();
             Runway.reverseDirector();
-
-            tmrShootDelay.reset();
         } else {
             Runway.disable();
-
-            tmrShootDelay.reset();
         }
 
-        //Hanger Control
-        if(btnHanger_Extend.get()) 
+        //Hanger Control, hold to zero against the bottom hard stop
+        if(btnHanger_Zero.get())
+            Hanger.zeroHeight();
+        else if(btnHanger_Extend.get()) 
             Hanger.extendWinch();
         else if(btnHanger_Retract.get()) 
             Hanger.retractWinch();
         else 
             Hanger.disableWinch();
 
+        Robot.prfLoop.mark(LoopStage.PERIOD);
+
         //Update Subsystems
         Chassis.periodic();
+        Robot.prfLoop.mark(LoopStage.CHASSIS);
 		Runway.periodic();
+        Robot.prfLoop.mark(LoopStage.RUNWAY);
         Hanger.periodic();
+        Robot.prfLoop.mark(LoopStage.HANGER);
     }
 }
@@ -1,9 +1,15 @@
 package frc.robot.period;
 
 import edu.wpi.first.networktables.NetworkTable;
+import frc.molib.buttons.Button;
 import frc.molib.buttons.ButtonManager;
+import frc.molib.dashboard.Chooser;
+import frc.molib.dashboard.Entry;
 import frc.molib.hid.XboxController;
+import frc.molib.utilities.Characterizer;
+import frc.molib.utilities.Console;
 import frc.robot.Robot;
+import frc.robot.Robot.LoopStage;
 import frc.robot.subsystem.Chassis;
 import frc.robot.subsystem.Hanger;
 import frc.robot.subsystem.Runway;
@@ -11,6 +17,44 @@ import frc.robot.subsystem.Runway;
 /** Test Period: Handles human input to control the robot. Used for testing systems not yet suitable for Teleoperated */
 @SuppressWarnings("unused")
 public class Test {
+    /** Chassis control loops that can be auto-tuned */
+    private static enum TuningLoop {
+        DISTANCE("Chassis Distance"),
+        ANGLE("Chassis Angle");
+
+        public final String label;
+
+        private TuningLoop(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    /** Mechanisms that can be characterized */
+    private static enum Mechanism {
+        CHASSIS("Chassis"),
+        REELS("Runway Reels"),
+        WINCH("Hanger Winch");
+
+        public final String label;
+
+        private Mechanism(String label) {
+            this.label = label;
+        }
+
+        public Characterizer getCharacterizer() {
+            switch(this) {
+                case CHASSIS: return Chassis.getCharacterizer();
+                case REELS: return Runway.getCharacterizer();
+                default: return Hanger.getCharacterizer();
+            }
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
 
     //Parent NetworkTable
     private static final NetworkTable tblTest = Robot.tblPeriod.getSubTable("Test");
@@ -19,6 +63,26 @@ public class Test {
     private static final XboxController ctlDriver = new XboxController(0);
     private static final XboxController ctlOperator = new XboxController(1);
 
+    //Choosers
+    private static Chooser<TuningLoop> chsTuningLoop = new Chooser<TuningLoop>(tblTest, "Auto-Tune Loop", TuningLoop.DISTANCE);
+    private static Chooser<Mechanism> chsMechanism = new Chooser<Mechanism>(tblTest, "Characterize Mechanism", Mechanism.CHASSIS);
+    private static Chooser<Characterizer.Test> chsCharacterizeTest = new Chooser<Characterizer.Test>(tblTest, "Characterize Test", Characterizer.Test.QUASISTATIC_FORWARD);
+
+    //Chooser Selections
+    private static TuningLoop mSelectedTuningLoop;
+    private static Mechanism mSelectedMechanism;
+    private static Characterizer.Test mSelectedCharacterizeTest;
+
+    //Dashboard Values
+    private static final Entry<double[]> entCharacterization = new Entry<double[]>(tblTest, "Characterization");
+
+    //Driver Buttons
+    private static final Button btnTune_Start = new Button() { @Override public boolean get() { return ctlDriver.getAButton(); } };
+    private static final Button btnStop = new Button() { @Override public boolean get() { return ctlDriver.getBButton(); } };
+    private static final Button btnCharacterize_Start = new Button() { @Override public boolean get() { return ctlDriver.getXButton(); } };
+    private static final Button btnCharacterize_Fit = new Button() { @Override public boolean get() { return ctlDriver.getYButton(); } };
+    private static final Button btnCharacterize_Clear = new Button() { @Override public boolean get() { return ctlDriver.getBackButton(); } };
+
     /** Private constructor to prevent individual instances from being created */
     private Test() {}
 
@@ -26,20 +90,63 @@ public class Test {
     public static void init() {
         //Clear any flags on controls
         ButtonManager.clearFlags();
+
+        //Get selected options from Dashboard
+        mSelectedTuningLoop = chsTuningLoop.get();
+        mSelectedMechanism = chsMechanism.get();
+        mSelectedCharacterizeTest = chsCharacterizeTest.get();
     }
 
     /** Initialize Dashboard values */
     public static void initDashboard() {
-        
+        chsTuningLoop.init();
+        chsMechanism.init();
+        chsCharacterizeTest.init();
     }
 
 //////////////////////////////////////////////////
     
     /** Call regularly to update PIDs, interpret sensor input, and apply buffered values to components. */
     public static void periodic() {
+        Characterizer characterizer = mSelectedMechanism.getCharacterizer();
+
+        //Stop any Auto-Tune or Characterization test in progress
+        if(btnStop.getPressed()) {
+            Chassis.stopTuning();
+            characterizer.stop();
+        }
+
+        //Chassis Auto-Tune, runs until it measures enough oscillations or is stopped
+        if(btnTune_Start.getPressed() && !Chassis.isTuning()) {
+            if(mSelectedTuningLoop == TuningLoop.DISTANCE) Chassis.startTuning_Distance();
+            else Chassis.startTuning_Angle();
+        }
+
+        //Mechanism Characterization, each test is added to the log until it is cleared
+        if(btnCharacterize_Start.getPressed()) {
+            characterizer.start(mSelectedCharacterizeTest);
+        } else if(btnCharacterize_Fit.getPressed() && !characterizer.isRunning()) {
+            double[] result = characterizer.fit();
+            if(result == null) {
+                Console.logMsg("Not enough " + mSelectedMechanism.toString() + " data to fit, run more tests");
+            } else {
+                Console.logMsg(mSelectedMechanism.toString() + " characterized: kS=" + String.format("%.4f", result[0]) 
+                    + " kV=" + String.format("%.4f", result[1]) + " kA=" + String.format("%.4f", result[2]) + " r²=" + String.format("%.3f", result[3]));
+                entCharacterization.set(result);
+            }
+            characterizer.save();
+        } else if(btnCharacterize_Clear.getPressed()) {
+            characterizer.clear();
+        }
+
+        Robot.prfLoop.mark(LoopStage.PERIOD);
+
         //Update Subsystems
         Chassis.periodic();
+        Robot.prfLoop.mark(LoopStage.CHASSIS);
 		Runway.periodic();
+        Robot.prfLoop.mark(LoopStage.RUNWAY);
         Hanger.periodic();
+        Robot.prfLoop.mark(LoopStage.HANGER);
     }
 }
@@ -1,14 +1,45 @@
 package frc.robot.subsystem;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Utils;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.controls.Follower;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.estimator.DifferentialDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.wpilibj.ADXRS450_Gyro;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import edu.wpi.first.wpilibj.Timer;
+import frc.molib.Limelight;
 import frc.molib.PIDController;
-import frc.molib.dashboard.Entry;
+import frc.molib.auto.RamseteFollower;
+import frc.molib.auto.TimedPath;
+import frc.molib.dashboard.DoubleArrayEntry;
+import frc.molib.dashboard.DoubleEntry;
+import frc.molib.sensors.ADXRS450;
+import frc.molib.utilities.Characterizer;
 import frc.molib.utilities.Console;
+import frc.molib.utilities.RelayTuner;
+import frc.molib.utilities.RelayTuner.TuningRule;
+import frc.molib.utilities.SampleHistory;
+import frc.robot.CANBudget;
 import frc.robot.Robot;
 
 /** Chassis Subsystem: Handles making the robot drive. */
@@ -17,8 +48,9 @@ public class Chassis {
 	private static final NetworkTable tblChassis = Robot.tblSubsystem.getSubTable("Chassis");
 
 	//Dashboard Values
-	private static final Entry<Double> entDrive_Distance = new Entry<Double>(tblChassis, "Drive Distance");
-	private static final Entry<Double> entDrive_Angle = new Entry<>(tblChassis, "Drive Angle");
+	private static final DoubleEntry entDrive_Distance = new DoubleEntry(tblChassis, "Drive Distance");
+	private static final DoubleEntry entDrive_Angle = new DoubleEntry(tblChassis, "Drive Angle");
+	private static final DoubleArrayEntry entPose = new DoubleArrayEntry(tblChassis, "Pose");
 
 	//Motors
 	private static final TalonFX mtrDrive_L1 = new TalonFX(1);
@@ -26,19 +58,153 @@ public class Chassis {
 	private static final TalonFX mtrDrive_R1 = new TalonFX(3);
 	private static final TalonFX mtrDrive_R2 = new TalonFX(4);
 
-	//Sensors
-	private static final ADXRS450_Gyro gyrDrive_Angle = new ADXRS450_Gyro();
+	//Status Signals
+	private static final StatusSignal<Double> sigPosition_L1 = mtrDrive_L1.getPosition();
+	private static final StatusSignal<Double> sigPosition_L2 = mtrDrive_L2.getPosition();
+	private static final StatusSignal<Double> sigPosition_R1 = mtrDrive_R1.getPosition();
+	private static final StatusSignal<Double> sigPosition_R2 = mtrDrive_R2.getPosition();
+	private static final StatusSignal<Double> sigVelocity_L1 = mtrDrive_L1.getVelocity();
+	private static final StatusSignal<Double> sigVelocity_R1 = mtrDrive_R1.getVelocity();
+
+	//Characterization Signals, cloned since they are refreshed from the Characterizer's thread
+	private static final StatusSignal<Double> sigCharacterize_Position_L = sigPosition_L1.clone();
+	private static final StatusSignal<Double> sigCharacterize_Position_R = sigPosition_R1.clone();
+	private static final StatusSignal<Double> sigCharacterize_Velocity_L = sigVelocity_L1.clone();
+	private static final StatusSignal<Double> sigCharacterize_Velocity_R = sigVelocity_R1.clone();
+
+	//Motor Control Requests, reused every loop
+	private static final VelocityVoltage reqVelocity_L = new VelocityVoltage(0.0).withSlot(0);
+	private static final VelocityVoltage reqVelocity_R = new VelocityVoltage(0.0).withSlot(0);
+	private static final VoltageOut reqVoltage_L = new VoltageOut(0.0);
+	private static final VoltageOut reqVoltage_R = new VoltageOut(0.0);
+
+	//Current Limits, reused whenever the Power Manager changes them
+	private static final CurrentLimitsConfigs cfgCurrentLimits = new CurrentLimitsConfigs();
+
+	//Sensors, the Gyro skips hardware calibration so its bias is measured and stored here instead
+	private static final ADXRS450 gyrDrive_Angle = new ADXRS450(SPI.Port.kOnboardCS0);
 
 	//PID Controllers
 	private static final PIDController pidDrive_Distance = new PIDController(0, 0, 0);
 	private static final PIDController pidDrive_Angle = new PIDController(0, 0, 0);
 
+	//Relay Auto-Tuners, relay power around the starting point with hysteresis in inches/degrees
+	private static final RelayTuner tunDrive_Distance = new RelayTuner(0.3, 0.5, 2, 3);
+	private static final RelayTuner tunDrive_Angle = new RelayTuner(0.3, 1.0, 2, 3);
+
+	//Characterization, 1V/s ramp for 4s and 6V step for 1.5s to stay within a practice field
+	private static final Characterizer chrDrive = new Characterizer("Chassis", Chassis::setCharacterizationVoltage, Chassis::refreshCharacterization,
+		Chassis::getCharacterizationPosition, Chassis::getCharacterizationVelocity, 1.0, 6.0, 4.0, 1.5);
+
+	//Timers
+	private static final Timer tmrGyroCalibration = new Timer();
+	private static final Timer tmrTuning = new Timer();
+
 	//Constants
 	private static final double DRIVE_GEAR_RATIO = 1.0/6.28;
-
-	//Power Buffer Variables
+	private static final double INCHES_PER_ROTATION = DRIVE_GEAR_RATIO * (Math.PI * 4.0);
+	private static final double TRACK_WIDTH = 22.0; //FIXME: Measure real track width
+	public static final double FIELD_LENGTH = 16.54; //Meters, shared with the trajectories mirrored for Red
+	private static final double FIELD_WIDTH = 8.21;
+	private static final int HISTORY_LENGTH = 100;
+	private static final String DISTANCE_GAINS_KEY = "Chassis/Distance";
+	private static final String ANGLE_GAINS_KEY = "Chassis/Angle";
+	private static final double TUNING_TIMEOUT = 15.0;
+	private static final double GYRO_CALIBRATION_TIME = 5.0;
+	private static final double GYRO_STATIONARY_RATE = 1.0;
+	private static final double GYRO_BIAS_SAVE_THRESHOLD = 0.01; //Degrees per second
+	private static final String GYRO_BIAS_KEY = "Chassis/Gyro Bias";
+	private static final double DRIVE_STATIONARY_VELOCITY = 0.05;
+	private static final double CONTROL_PERIOD = 0.02;
+	private static final double MAX_DRIVE_VELOCITY = 150.0; //Inches per second, under the ~210in/s free speed
+	private static final double MAX_DRIVE_ACCELERATION = 200.0; //Inches per second squared, below where the wheels slip
+	private static final double MAX_TURN_VELOCITY = 360.0; //Degrees per second
+	private static final double MAX_TURN_ACCELERATION = 720.0; //Degrees per second squared
+	private static final double DRIVE_KS = 0.15; //FIXME: Characterize drivetrain, Volts
+	private static final double DRIVE_KV = 0.055; //FIXME: Characterize drivetrain, Volts per inch per second
+	private static final double DRIVE_KA = 0.005; //FIXME: Characterize drivetrain, Volts per inch per second squared
+	private static final double MAX_WHEEL_VELOCITY = 200.0; //Inches per second, top speed used for full stick in velocity control
+	private static final double VELOCITY_KP = 0.1; //FIXME: Tune onboard velocity loop, Volts per rotation per second of error
+	private static final double DISTANCE_TOLERANCE = 1.0;
+	private static final double ANGLE_TOLERANCE = 2.0;
+	private static final double DISTANCE_INTEGRATOR_ZONE = 6.0;
+	private static final double ANGLE_INTEGRATOR_ZONE = 10.0;
+	private static final double RAMSETE_B = 2.0; //Trajectory correction aggressiveness, rad²/m²
+	private static final double RAMSETE_ZETA = 0.7; //Trajectory correction damping
+	private static final boolean IS_SIMULATION = RobotBase.isSimulation();
+
+	//Pose Estimation
+	private static final DifferentialDriveKinematics kinDrive = new DifferentialDriveKinematics(Units.inchesToMeters(TRACK_WIDTH));
+	private static final DifferentialDrivePoseEstimator estPose = new DifferentialDrivePoseEstimator(kinDrive, new Rotation2d(), 0.0, 0.0, new Pose2d());
+
+	//Motion Profiles, distance in inches and angle in degrees
+	private static final TrapezoidProfile prfDrive_Distance = new TrapezoidProfile(new TrapezoidProfile.Constraints(MAX_DRIVE_VELOCITY, MAX_DRIVE_ACCELERATION));
+	private static final TrapezoidProfile prfDrive_Angle = new TrapezoidProfile(new TrapezoidProfile.Constraints(MAX_TURN_VELOCITY, MAX_TURN_ACCELERATION));
+	private static final SimpleMotorFeedforward ffDrive = new SimpleMotorFeedforward(DRIVE_KS, DRIVE_KV, DRIVE_KA);
+	private static TrapezoidProfile.State mDistanceGoal = new TrapezoidProfile.State();
+	private static TrapezoidProfile.State mDistanceSetpoint = new TrapezoidProfile.State();
+	private static TrapezoidProfile.State mAngleGoal = new TrapezoidProfile.State();
+	private static TrapezoidProfile.State mAngleSetpoint = new TrapezoidProfile.State();
+
+	//Trajectory Following, in meters on the field
+	private static final RamseteFollower flwTrajectory = new RamseteFollower(RAMSETE_B, RAMSETE_ZETA, Units.inchesToMeters(TRACK_WIDTH));
+	private static double mTrajectoryStartTime = 0.0;
+
+	//Tuner currently driving the Chassis, null when not tuning
+	private static RelayTuner mActiveTuner = null;
+
+	//Heading held during distance moves that aren't also turning, in absolute degrees so resets don't move it
+	private static boolean mIsHoldingHeading = false;
+	private static double mHoldHeading = 0.0;
+
+	//Gyro drift compensation, total bias of the raw readings in degrees per second
+	private static boolean mIsGyroBiasKnown = false;
+	private static double mGyroBias = 0.0;
+	private static double mSavedGyroBias = Double.NaN;
+	private static double mGyroBiasTime = 0.0;
+	private static double mGyroDriftOffset = 0.0;
+	private static double mGyroCalibrationStartAngle = 0.0;
+
+	//Sensor Snapshot, refreshed once per loop
+	private static double mDistance = 0.0;
+	private static double mDistance_L = 0.0;
+	private static double mDistance_R = 0.0;
+	private static double mVelocity = 0.0;
+	private static double mVelocity_L = 0.0;
+	private static double mVelocity_R = 0.0;
+	private static double mAngle = 0.0;
+	private static double mAngleRaw = 0.0;
+	private static double mAngleRate = 0.0;
+	private static double mHeading = 0.0;
+	private static double mBatteryVoltage = 12.0;
+
+	//Reset offsets, so resets don't disturb odometry
+	private static double mDistanceOffset = 0.0;
+	private static double mAngleOffset = 0.0;
+
+	//Last fused Limelight pose [x, y, latency], and Dashboard pose [x, y, angle]
+	private static final double[] mLastVisionPose = new double[3];
+	private static final double[] mPoseBuffer = new double[3];
+
+	//Sensor History, two seconds of samples
+	private static final SampleHistory hstDistance = new SampleHistory(HISTORY_LENGTH);
+	private static final SampleHistory hstVelocity = new SampleHistory(HISTORY_LENGTH);
+	private static final SampleHistory hstAngle = new SampleHistory(HISTORY_LENGTH);
+
+	//Power Buffer Variables, velocities in inches per second when under onboard velocity control
 	private static double mDrivePower_L = 0.0;
 	private static double mDrivePower_R = 0.0;
+	private static double mDriveVelocity_L = 0.0;
+	private static double mDriveVelocity_R = 0.0;
+	private static boolean mIsVelocityControl = false;
+
+	//Simulated drivetrain, standing in for the motors and Gyro off-robot, in inches and clockwise degrees
+	private static SimDeviceSim simDrive_Angle = null;
+	private static double mSimDistance_L = 0.0;
+	private static double mSimDistance_R = 0.0;
+	private static double mSimVelocity_L = 0.0;
+	private static double mSimVelocity_R = 0.0;
+	private static double mSimHeading = 0.0;
 
 ////System-wide Control
 
@@ -61,14 +227,58 @@ public class Chassis {
 		mtrDrive_R1.setNeutralMode(NeutralModeValue.Coast);
 		mtrDrive_R2.setNeutralMode(NeutralModeValue.Coast);
 
+		//PID configuration, gains from the last auto-tune
+		pidDrive_Distance.loadGains(DISTANCE_GAINS_KEY);
+		pidDrive_Angle.loadGains(ANGLE_GAINS_KEY);
+		pidDrive_Distance.setTolerance(DISTANCE_TOLERANCE);
+		pidDrive_Angle.setTolerance(ANGLE_TOLERANCE);
+		pidDrive_Angle.configContinuousInput(-180.0, 180.0);
+		pidDrive_Distance.configIntegratorZone(DISTANCE_INTEGRATOR_ZONE);
+		pidDrive_Angle.configIntegratorZone(ANGLE_INTEGRATOR_ZONE);
+
+		//Onboard velocity loop, gains converted from inches to motor rotations
+		Slot0Configs cfgVelocity = new Slot0Configs()
+			.withKP(VELOCITY_KP)
+			.withKS(DRIVE_KS)
+			.withKV(DRIVE_KV * INCHES_PER_ROTATION)
+			.withKA(DRIVE_KA * INCHES_PER_ROTATION);
+		mtrDrive_L1.getConfigurator().apply(cfgVelocity);
+		mtrDrive_R1.getConfigurator().apply(cfgVelocity);
+
 		//Motor Follower configuration
 		mtrDrive_L2.setControl(new Follower(mtrDrive_L1.getDeviceID(), false));
 		mtrDrive_R2.setControl(new Follower(mtrDrive_R1.getDeviceID(), false));
 
-		//Gyro calibration
-		Console.logMsg("Calibrating Gyro, please don't move the robot...");
-		gyrDrive_Angle.calibrate();
-		Console.logMsg("Gyro Calibrated");
+		//CAN Budget, rates in Hz for [Disabled, Autonomous, Teleoperated, Test]
+		CANBudget.registerDevice(mtrDrive_L1);
+		CANBudget.registerDevice(mtrDrive_L2);
+		CANBudget.registerDevice(mtrDrive_R1);
+		CANBudget.registerDevice(mtrDrive_R2);
+		CANBudget.registerSignal(sigPosition_L1, 10.0, 100.0, 50.0, 200.0);
+		CANBudget.registerSignal(sigPosition_L2, 10.0, 100.0, 50.0, 100.0);
+		CANBudget.registerSignal(sigPosition_R1, 10.0, 100.0, 50.0, 200.0);
+		CANBudget.registerSignal(sigPosition_R2, 10.0, 100.0, 50.0, 100.0);
+		CANBudget.registerSignal(sigVelocity_L1, 20.0, 100.0, 50.0, 200.0);
+		CANBudget.registerSignal(sigVelocity_R1, 20.0, 100.0, 50.0, 200.0);
+
+		//Followers mirror their leader's output signals, so those must stay on
+		CANBudget.registerSignal(mtrDrive_L1.getDutyCycle(), 20.0, 100.0, 100.0, 100.0);
+		CANBudget.registerSignal(mtrDrive_L1.getMotorVoltage(), 20.0, 100.0, 100.0, 100.0);
+		CANBudget.registerSignal(mtrDrive_R1.getDutyCycle(), 20.0, 100.0, 100.0, 100.0);
+		CANBudget.registerSignal(mtrDrive_R1.getMotorVoltage(), 20.0, 100.0, 100.0, 100.0);
+
+		//Gyro bias, the last stored value is used straight away and refined whenever the robot sits still while disabled
+		mGyroBiasTime = Timer.getFPGATimestamp();
+		if(IS_SIMULATION) {
+			mIsGyroBiasKnown = true;
+		} else if(Preferences.containsKey(GYRO_BIAS_KEY)) {
+			mSavedGyroBias = Preferences.getDouble(GYRO_BIAS_KEY, 0.0);
+			mGyroBias = mSavedGyroBias;
+			mIsGyroBiasKnown = true;
+			Console.logMsg("Using stored Gyro bias of " + mGyroBias + " degrees per second");
+		} else {
+			Console.logMsg("No stored Gyro bias, please keep the robot still while disabled for " + GYRO_CALIBRATION_TIME + " seconds...");
+		}
 
 		Console.logMsg("Chassis Initialization Complete");
 	}
@@ -83,6 +293,12 @@ public class Chassis {
 	public static void updateDashboard() {
 		entDrive_Distance.set(getDistance());
 		entDrive_Angle.set(getAngle());
+
+		Pose2d pose = getPose();
+		mPoseBuffer[0] = pose.getX();
+		mPoseBuffer[1] = pose.getY();
+		mPoseBuffer[2] = pose.getRotation().getDegrees();
+		entPose.set(mPoseBuffer);
 	}
 
 	/** Disable the entire subsystem */
@@ -91,58 +307,261 @@ public class Chassis {
 		disablePIDs();
 	}
 
-	/** Release Chassis control from all PIDs */
+	/**
+	 * Limit the current every drive motor may draw, applied without waiting so it can be called mid-match
+	 * @param supplyLimit	Supply current limit in amps
+	 * @param statorLimit	Stator current limit in amps
+	 */
+	public static void configCurrentLimits(double supplyLimit, double statorLimit) {
+		cfgCurrentLimits.SupplyCurrentLimit = supplyLimit;
+		cfgCurrentLimits.SupplyCurrentLimitEnable = true;
+		cfgCurrentLimits.StatorCurrentLimit = statorLimit;
+		cfgCurrentLimits.StatorCurrentLimitEnable = true;
+		mtrDrive_L1.getConfigurator().apply(cfgCurrentLimits, 0.0);
+		mtrDrive_L2.getConfigurator().apply(cfgCurrentLimits, 0.0);
+		mtrDrive_R1.getConfigurator().apply(cfgCurrentLimits, 0.0);
+		mtrDrive_R2.getConfigurator().apply(cfgCurrentLimits, 0.0);
+	}
+
+	/** Release Chassis control from all PIDs, trajectories, and any auto-tune */
 	public static void disablePIDs() {
 		disablePID_Distance();
 		disablePID_Angle();
+		stopTrajectory();
+		stopTuning();
 	}
 
 ////Sensors
 
+	/** Call once at the start of every loop to refresh all sensor readings together */
+	public static void updateSensors() {
+		BaseStatusSignal.refreshAll(sigPosition_L1, sigPosition_L2, sigPosition_R1, sigPosition_R2, sigVelocity_L1, sigVelocity_R1);
+		double now = Timer.getFPGATimestamp();
+
+		//Average position of each side's drive motors, multiplied by the gearbox ration, multiplied by the circumference of the wheels
+		double position_L = (sigPosition_L1.getValueAsDouble() + sigPosition_L2.getValueAsDouble()) / 2.0;
+		double position_R = (sigPosition_R1.getValueAsDouble() + sigPosition_R2.getValueAsDouble()) / 2.0;
+		mVelocity_L = sigVelocity_L1.getValueAsDouble();
+		mVelocity_R = sigVelocity_R1.getValueAsDouble();
+
+		//Record when the motors actually measured it, and compensate the snapshot for how old it is
+		double positionTime = now - (Utils.getCurrentTimeSeconds() - sigPosition_L1.getTimestamp().getTime());
+		double velocityTime = now - (Utils.getCurrentTimeSeconds() - sigVelocity_L1.getTimestamp().getTime());
+
+		//The simulated drivetrain is measured the moment it is advanced
+		if(IS_SIMULATION) {
+			position_L = mSimDistance_L / INCHES_PER_ROTATION;
+			position_R = mSimDistance_R / INCHES_PER_ROTATION;
+			mVelocity_L = mSimVelocity_L / INCHES_PER_ROTATION;
+			mVelocity_R = mSimVelocity_R / INCHES_PER_ROTATION;
+			positionTime = now;
+			velocityTime = now;
+		}
+		hstDistance.add(positionTime, ((position_L + position_R) / 2.0) * INCHES_PER_ROTATION);
+		hstVelocity.add(velocityTime, ((mVelocity_L + mVelocity_R) / 2.0) * INCHES_PER_ROTATION);
+		mDistance_L = (position_L + mVelocity_L * (now - positionTime)) * INCHES_PER_ROTATION;
+		mDistance_R = (position_R + mVelocity_R * (now - positionTime)) * INCHES_PER_ROTATION;
+		mDistance = ((mDistance_L + mDistance_R) / 2.0) - mDistanceOffset;
+		mVelocity = ((mVelocity_L + mVelocity_R) / 2.0) * INCHES_PER_ROTATION;
+
+		mAngleRaw = gyrDrive_Angle.getAngle();
+		mAngleRate = gyrDrive_Angle.getRate() - mGyroBias;
+		if(isGyroReady()) {
+			mHeading = mAngleRaw - mGyroDriftOffset - (mGyroBias * (now - mGyroBiasTime));
+			hstAngle.add(now, mHeading);
+		} else {
+			mHeading = 0.0;
+		}
+		mAngle = mHeading - mAngleOffset;
+		mBatteryVoltage = RobotController.getBatteryVoltage();
+
+		updatePose(now);
+	}
+
 	/** 
 	 * Get the averaged drive distance since last reset 
 	 * @return Distance driven in inches
 	 */
 	public static double getDistance() {
-		//Average position of all drive motors, multiplied by the gearbox ration, multiplied by the circumference of the wheels
-		return ((mtrDrive_L1.getPosition().getValue() + mtrDrive_L2.getPosition().getValue() + mtrDrive_R1.getPosition().getValue() + mtrDrive_R2.getPosition().getValue()) / 4.0 ) * DRIVE_GEAR_RATIO * (Math.PI * 4.0);
+		return mDistance;
 	}
 
-	/** Reset all Drive Motor positions to 0.0 */
+	/** Reset the drive distance to 0.0. The motor positions themselves are left alone so odometry is unaffected. */
 	public static void resetDistance() {
-		mtrDrive_L1.setPosition(0.0);
-		mtrDrive_L2.setPosition(0.0);
-		mtrDrive_R1.setPosition(0.0);
-		mtrDrive_R2.setPosition(0.0);
+		mDistanceOffset += mDistance;
+		mDistance = 0.0;
+	}
+
+	/**
+	 * Get the averaged drive distance at a time in the recent past
+	 * @param timestamp FPGA time in seconds
+	 * @return Distance driven in inches since last reset, interpolated between measurements
+	 */
+	public static double getDistanceAt(double timestamp) {
+		return hstDistance.getAt(timestamp) - mDistanceOffset;
 	}
 
 	/**
-	 * Get whether the distance PID has reached its target
+	 * Get how much the drive distance has wandered since a time in the recent past
+	 * @param timestamp FPGA time in seconds
+	 * @return Difference between the largest and smallest distance in inches
+	 */
+	public static double getDistanceRangeSince(double timestamp) {
+		return hstDistance.getRangeSince(timestamp);
+	}
+
+	/**
+	 * Get the averaged drive velocity
+	 * @return Velocity in inches per second
+	 */
+	public static double getVelocity() {
+		return mVelocity;
+	}
+
+	/**
+	 * Get the averaged drive velocity at a time in the recent past
+	 * @param timestamp FPGA time in seconds
+	 * @return Velocity in inches per second, interpolated between measurements
+	 */
+	public static double getVelocityAt(double timestamp) {
+		return hstVelocity.getAt(timestamp);
+	}
+
+	/**
+	 * Get whether the distance profile has finished and the PID has reached its target
 	 * @return True if on target for target time
 	 */
 	public static boolean isAtDistance() {
-		return pidDrive_Distance.atSetpoint();
+		return mDistanceSetpoint.equals(mDistanceGoal) && pidDrive_Distance.atSetpoint();
 	}
 
 	/** 
-	 * Get the chassis angle since last reset 
-	 * @return Angle turned in degrees
+	 * Get the chassis angle since last reset, compensated for the measured Gyro bias
+	 * @return Angle turned in degrees, 0.0 until the Gyro is ready
 	 */
 	public static double getAngle() {
-		return gyrDrive_Angle.getAngle();
+		return mAngle;
 	}
 
-	/** Reset Gyro angle to 0.0 */
+	/** Reset the chassis angle to 0.0. The Gyro itself is left alone so odometry is unaffected. */
 	public static void resetAngle() {
-		gyrDrive_Angle.reset();
+		mAngleOffset = mHeading;
+		mAngle = 0.0;
+	}
+
+	/**
+	 * Get the chassis angle at a time in the recent past
+	 * @param timestamp FPGA time in seconds
+	 * @return Angle turned in degrees since last reset, interpolated between measurements
+	 */
+	public static double getAngleAt(double timestamp) {
+		return hstAngle.getAt(timestamp) - mAngleOffset;
+	}
+
+	/**
+	 * Get whether the Gyro is connected and its bias is known, either stored from a previous boot or measured in this one
+	 * @return True if Gyro readings can be trusted
+	 */
+	public static boolean isGyroReady() {
+		return gyrDrive_Angle.isConnected() && mIsGyroBiasKnown;
+	}
+
+	/**
+	 * Get whether the Chassis is sitting still, based on Drive motor and Gyro rates
+	 * @return True if nothing is moving. The Gyro rate is only checked once its bias is known.
+	 */
+	public static boolean isStationary() {
+		return Math.abs(mVelocity_L) < DRIVE_STATIONARY_VELOCITY
+			&& Math.abs(mVelocity_R) < DRIVE_STATIONARY_VELOCITY
+			&& (!mIsGyroBiasKnown || Math.abs(mAngleRate) < GYRO_STATIONARY_RATE);
+	}
+
+	/**
+	 * Change the Gyro bias without causing a jump in the current angle
+	 * @param bias Drift rate in degrees per second
+	 */
+	private static void setGyroBias(double bias) {
+		double now = Timer.getFPGATimestamp();
+		mGyroDriftOffset += mGyroBias * (now - mGyroBiasTime);
+		mGyroBiasTime = now;
+		mGyroBias = bias;
+	}
+
+	/** Throw away any partial background calibration and start a new window */
+	public static void restartGyroCalibration() {
+		tmrGyroCalibration.reset();
+		tmrGyroCalibration.start();
+		mGyroCalibrationStartAngle = mAngleRaw;
+	}
+
+	/** 
+	 * Call regularly while disabled to measure Gyro drift whenever the Chassis is stationary.
+	 * Each full window of stillness updates the total bias of the raw readings, which is stored for the next boot
+	 * whenever it has changed by more than {@value #GYRO_BIAS_SAVE_THRESHOLD} degrees per second.
+	 */
+	public static void updateGyroCalibration() {
+		if(!gyrDrive_Angle.isConnected() || !isStationary()) {
+			restartGyroCalibration();
+		} else if(tmrGyroCalibration.get() >= GYRO_CALIBRATION_TIME) {
+			setGyroBias((mAngleRaw - mGyroCalibrationStartAngle) / tmrGyroCalibration.get());
+			restartGyroCalibration();
+			if(!mIsGyroBiasKnown) Console.logMsg("Gyro Calibrated");
+			mIsGyroBiasKnown = true;
+
+			if(!IS_SIMULATION && !(Math.abs(mGyroBias - mSavedGyroBias) <= GYRO_BIAS_SAVE_THRESHOLD)) {
+				Preferences.setDouble(GYRO_BIAS_KEY, mGyroBias);
+				mSavedGyroBias = mGyroBias;
+			}
+		}
 	}
 
 	/**
-	 * Get whether the angle PID has reached its target
+	 * Get whether the angle profile has finished and the PID has reached its target
 	 * @return True if on target for target time
 	 */
 	public static boolean isAtAngle() {
-		return pidDrive_Angle.atSetpoint();
+		return mAngleSetpoint.equals(mAngleGoal) && pidDrive_Angle.atSetpoint();
+	}
+
+////Pose
+
+	/**
+	 * Advance odometry and fuse in any new Limelight measurement
+	 * @param now Current FPGA time in seconds
+	 */
+	private static void updatePose(double now) {
+		//Gyro angle is clockwise-positive, field rotations are counterclockwise-positive
+		estPose.updateWithTime(now, Rotation2d.fromDegrees(-mHeading), Units.inchesToMeters(mDistance_L), Units.inchesToMeters(mDistance_R));
+
+		if(!Limelight.hasTarget()) return;
+		double[] botPose = Limelight.getBotPose();
+		if(botPose.length < 7) return;
+
+		//Skip frames already fused, and anything that isn't on the field
+		if(botPose[0] == mLastVisionPose[0] && botPose[1] == mLastVisionPose[1] && botPose[6] == mLastVisionPose[2]) return;
+		mLastVisionPose[0] = botPose[0];
+		mLastVisionPose[1] = botPose[1];
+		mLastVisionPose[2] = botPose[6];
+		if(botPose[0] < 0.0 || botPose[0] > FIELD_LENGTH || botPose[1] < 0.0 || botPose[1] > FIELD_WIDTH) return;
+
+		//Limelight reports total pipeline and capture latency in milliseconds
+		estPose.addVisionMeasurement(new Pose2d(botPose[0], botPose[1], Rotation2d.fromDegrees(botPose[5])), now - (botPose[6] / 1000.0));
+	}
+
+	/**
+	 * Get the estimated position of the robot on the field
+	 * @return Field-relative pose in meters, blue alliance origin
+	 */
+	public static Pose2d getPose() {
+		return estPose.getEstimatedPosition();
+	}
+
+	/**
+	 * Reset the estimated position of the robot on the field
+	 * @param pose Field-relative pose in meters, blue alliance origin
+	 */
+	public static void resetPose(Pose2d pose) {
+		estPose.resetPosition(Rotation2d.fromDegrees(-mHeading), Units.inchesToMeters(mDistance_L), Units.inchesToMeters(mDistance_R), pose);
 	}
 
 ////Drive
@@ -153,15 +572,37 @@ public class Chassis {
 	 * @param powerRight	[-1.0 to 1.0] Power to the right Drive motors
 	 */
 	public static void setDrivePower(double powerLeft, double powerRight) {
+		mIsVelocityControl = false;
 		mDrivePower_L = powerLeft;
 		mDrivePower_R = powerRight;
 	}
 
+	/**
+	 * Command a speed to the left and right Drive motors, held by the motor controllers' onboard velocity loop
+	 * so the response doesn't depend on battery voltage or loop timing
+	 * @param speedLeft		[-1.0 to 1.0] Fraction of top speed for the left Drive motors
+	 * @param speedRight	[-1.0 to 1.0] Fraction of top speed for the right Drive motors
+	 */
+	public static void setDriveSpeed(double speedLeft, double speedRight) {
+		mIsVelocityControl = true;
+		mDriveVelocity_L = MathUtil.clamp(speedLeft, -1.0, 1.0) * MAX_WHEEL_VELOCITY;
+		mDriveVelocity_R = MathUtil.clamp(speedRight, -1.0, 1.0) * MAX_WHEEL_VELOCITY;
+	}
+
 	/** Turn off Drive motors */
 	public static void disableDrive() {
 		setDrivePower(0.0, 0.0);
 	}
 
+	/**
+	 * Convert a feedforward voltage into Drive power for the current battery voltage
+	 * @param volts Voltage to apply
+	 * @return [-1.0 to 1.0] Equivalent Drive power
+	 */
+	private static double toDrivePower(double volts) {
+		return volts / Math.max(mBatteryVoltage, 1.0);
+	}
+
 	/** Set all Drive motors to Brake mode */
 	public static void enableBrake() {
 		mtrDrive_L1.setNeutralMode(NeutralModeValue.Brake);
@@ -181,28 +622,88 @@ public class Chassis {
 ////Distance PID
 
 	/**
-	 * Drive to a specific distance, straight forward
+	 * Drive to a specific distance, straight forward, following a trapezoidal profile from the current distance and speed.
+	 * <p>Holds the current heading while driving, unless the Angle PID is already running, in which case both run together.</p>
 	 * @param distance Target distance in inches
 	 */
 	public static void goToDistance(double distance) {
+		if(!pidDrive_Angle.isEnabled()) {
+			mIsHoldingHeading = true;
+			mHoldHeading = mHeading;
+			pidDrive_Angle.reset();
+		}
+
+		mDistanceGoal = new TrapezoidProfile.State(distance, 0.0);
+		mDistanceSetpoint = new TrapezoidProfile.State(getDistance(), getVelocity());
+		pidDrive_Distance.reset();
+		pidDrive_Distance.setSetpoint(getDistance());
 		pidDrive_Distance.enable();
-		pidDrive_Distance.setSetpoint(distance);
+	}
+
+	/**
+	 * Advance the distance profile one loop and calculate the Drive power to follow it
+	 * @return [-1.0 to 1.0] Drive power, profile feedforward plus PID correction
+	 */
+	private static double calculateDistanceOutput() {
+		double lastVelocity = mDistanceSetpoint.velocity;
+		mDistanceSetpoint = prfDrive_Distance.calculate(CONTROL_PERIOD, mDistanceSetpoint, mDistanceGoal);
+		double acceleration = (mDistanceSetpoint.velocity - lastVelocity) / CONTROL_PERIOD;
+
+		pidDrive_Distance.setSetpoint(mDistanceSetpoint.position);
+		return pidDrive_Distance.calculate(getDistance()) + toDrivePower(ffDrive.calculate(mDistanceSetpoint.velocity, acceleration));
+	}
+
+	/**
+	 * Get how far the Chassis is from the distance last requested by {@link #goToDistance(double)}
+	 * @return Remaining distance in inches
+	 */
+	public static double getDistanceError() {
+		return mDistanceGoal.position - getDistance();
 	}
 
 	/** Release Chassis control from the Distance PID */
 	public static void disablePID_Distance() {
 		pidDrive_Distance.disable();
+		mIsHoldingHeading = false;
 	}
 
 ////Angle PID
 
 	/**
-	 * Turn to a specific angle
+	 * Turn to a specific angle, following a trapezoidal profile from the current angle and turn rate.
+	 * The turn always takes the shortest way around.
 	 * @param angle Target angle in degrees
 	 */
 	public static void goToAngle(double angle) {
+		mIsHoldingHeading = false;
+		mAngleGoal = new TrapezoidProfile.State(getAngle() + MathUtil.inputModulus(angle - getAngle(), -180.0, 180.0), 0.0);
+		mAngleSetpoint = new TrapezoidProfile.State(getAngle(), mAngleRate);
+		pidDrive_Angle.reset();
+		pidDrive_Angle.setSetpoint(getAngle());
 		pidDrive_Angle.enable();
-		pidDrive_Angle.setSetpoint(angle);
+	}
+
+	/**
+	 * Advance the angle profile one loop and calculate the turn power to follow it
+	 * @return [-1.0 to 1.0] Turn power, positive turns clockwise, profile feedforward plus PID correction
+	 */
+	private static double calculateAngleOutput() {
+		double lastRate = mAngleSetpoint.velocity;
+		mAngleSetpoint = prfDrive_Angle.calculate(CONTROL_PERIOD, mAngleSetpoint, mAngleGoal);
+		double acceleration = (mAngleSetpoint.velocity - lastRate) / CONTROL_PERIOD;
+
+		//Each side's wheels travel along a circle of half the track width
+		double inchesPerDegree = Units.degreesToRadians(TRACK_WIDTH / 2.0);
+		pidDrive_Angle.setSetpoint(mAngleSetpoint.position);
+		return pidDrive_Angle.calculate(getAngle()) + toDrivePower(ffDrive.calculate(mAngleSetpoint.velocity * inchesPerDegree, acceleration * inchesPerDegree));
+	}
+
+	/**
+	 * Get how far the Chassis is from the angle last requested by {@link #goToAngle(double)}
+	 * @return Remaining angle in degrees
+	 */
+	public static double getAngleError() {
+		return mAngleGoal.position - getAngle();
 	}
 
 	/** Release Chassis control from the Angle PID */
@@ -210,18 +711,227 @@ public class Chassis {
 		pidDrive_Angle.disable();
 	}
 
+////Trajectory
+
+	/**
+	 * Follow a precomputed trajectory, correcting for the estimated pose with a Ramsete controller.
+	 * The pose should already be reset to the trajectory's start, or be tracking the field.
+	 * @param path Trajectory to follow, in field meters
+	 */
+	public static void followTrajectory(TimedPath path) {
+		disablePID_Distance();
+		disablePID_Angle();
+		stopTuning();
+		flwTrajectory.start(path);
+		mTrajectoryStartTime = Timer.getFPGATimestamp();
+	}
+
+	/** Stop following the current trajectory */
+	public static void stopTrajectory() {
+		if(!flwTrajectory.isRunning()) return;
+		flwTrajectory.stop();
+		disableDrive();
+	}
+
+	/**
+	 * Get whether the Chassis is following a trajectory
+	 * @return True if under trajectory control
+	 */
+	public static boolean isFollowingTrajectory() {
+		return flwTrajectory.isRunning();
+	}
+
+	/**
+	 * Get whether the whole trajectory has been run
+	 * @return True once the trajectory's time has passed, or if none is being followed
+	 */
+	public static boolean isTrajectoryFinished() {
+		return flwTrajectory.isFinished(Timer.getFPGATimestamp() - mTrajectoryStartTime);
+	}
+
+	/**
+	 * Get how far the Chassis is from where the trajectory says it should be
+	 * @return Position error in inches, as of the last loop
+	 */
+	public static double getTrajectoryError() {
+		return Units.metersToInches(flwTrajectory.getPositionError());
+	}
+
+	private static void updateTrajectory() {
+		Pose2d pose = getPose();
+		flwTrajectory.calculate(pose.getX(), pose.getY(), pose.getRotation().getRadians(), Timer.getFPGATimestamp() - mTrajectoryStartTime);
+
+		mIsVelocityControl = true;
+		mDriveVelocity_L = MathUtil.clamp(Units.metersToInches(flwTrajectory.getLeft()), -MAX_WHEEL_VELOCITY, MAX_WHEEL_VELOCITY);
+		mDriveVelocity_R = MathUtil.clamp(Units.metersToInches(flwTrajectory.getRight()), -MAX_WHEEL_VELOCITY, MAX_WHEEL_VELOCITY);
+	}
+
+////Auto-Tuning
+
+	/** Oscillate the Chassis forward and back around its current distance to tune the Distance PID */
+	public static void startTuning_Distance() {
+		disablePIDs();
+		Console.logMsg("Auto-tuning Distance PID, keep clear of the robot...");
+		tunDrive_Distance.start(getDistance());
+		mActiveTuner = tunDrive_Distance;
+		tmrTuning.reset();
+		tmrTuning.start();
+	}
+
+	/** Oscillate the Chassis left and right around its current angle to tune the Angle PID */
+	public static void startTuning_Angle() {
+		if(!isGyroReady()) {
+			Console.logMsg("Cannot auto-tune Angle PID, Gyro is not ready");
+			return;
+		}
+
+		disablePIDs();
+		Console.logMsg("Auto-tuning Angle PID, keep clear of the robot...");
+		tunDrive_Angle.start(getAngle());
+		mActiveTuner = tunDrive_Angle;
+		tmrTuning.reset();
+		tmrTuning.start();
+	}
+
+	/** Abandon any auto-tune in progress */
+	public static void stopTuning() {
+		if(mActiveTuner == null) return;
+		mActiveTuner.stop();
+		mActiveTuner = null;
+		disableDrive();
+	}
+
+	/**
+	 * Get whether an auto-tune is driving the Chassis
+	 * @return True if tuning
+	 */
+	public static boolean isTuning() {
+		return mActiveTuner != null;
+	}
+
+	/** Run the active tuner for one loop, storing the new gains once it has measured enough oscillations */
+	private static void updateTuning() {
+		double now = Timer.getFPGATimestamp();
+		if(mActiveTuner == tunDrive_Distance) {
+			double output = tunDrive_Distance.calculate(getDistance(), now);
+			setDrivePower(output, output);
+		} else {
+			double output = tunDrive_Angle.calculate(getAngle(), now);
+			setDrivePower(output, -output);
+		}
+
+		if(mActiveTuner.isFinished()) {
+			boolean isDistance = mActiveTuner == tunDrive_Distance;
+			double[] gains = mActiveTuner.getGains(TuningRule.NO_OVERSHOOT);
+			(isDistance ? pidDrive_Distance : pidDrive_Angle).saveGains(isDistance ? DISTANCE_GAINS_KEY : ANGLE_GAINS_KEY, gains[0], gains[1], gains[2]);
+			Console.logMsg((isDistance ? "Distance" : "Angle") + " PID tuned: Ku=" + String.format("%.4f", mActiveTuner.getUltimateGain()) 
+				+ " Tu=" + String.format("%.3f", mActiveTuner.getUltimatePeriod()) + "s"
+				+ " -> kP=" + String.format("%.4f", gains[0]) + " kI=" + String.format("%.4f", gains[1]) + " kD=" + String.format("%.4f", gains[2]));
+			mActiveTuner = null;
+			disableDrive();
+		} else if(tmrTuning.get() > TUNING_TIMEOUT) {
+			Console.logMsg("Auto-tune timed out without a steady oscillation, gains unchanged");
+			stopTuning();
+		}
+	}
+
+////Characterization
+
+	/**
+	 * Get the Chassis system-identification routines, for use in the Test period
+	 * @return Characterizer driving both sides forward and back together
+	 */
+	public static Characterizer getCharacterizer() {
+		return chrDrive;
+	}
+
+	private static void setCharacterizationVoltage(double volts) {
+		mtrDrive_L1.setControl(reqVoltage_L.withOutput(volts));
+		mtrDrive_R1.setControl(reqVoltage_R.withOutput(volts));
+	}
+
+	private static void refreshCharacterization() {
+		BaseStatusSignal.refreshAll(sigCharacterize_Position_L, sigCharacterize_Position_R, sigCharacterize_Velocity_L, sigCharacterize_Velocity_R);
+	}
+
+	private static double getCharacterizationPosition() {
+		return ((sigCharacterize_Position_L.getValueAsDouble() + sigCharacterize_Position_R.getValueAsDouble()) / 2.0) * INCHES_PER_ROTATION;
+	}
+
+	private static double getCharacterizationVelocity() {
+		return ((sigCharacterize_Velocity_L.getValueAsDouble() + sigCharacterize_Velocity_R.getValueAsDouble()) / 2.0) * INCHES_PER_ROTATION;
+	}
+
+////Simulation
+
+	/**
+	 * Call once every loop in simulation to drive the simulated drivetrain from the buffered outputs.
+	 * Phoenix simulation runs on its own real-time clock, so the model feeds the sensor snapshot directly
+	 * and the Robot can be stepped faster than real time. The Gyro is simulated through its SimDevice.
+	 */
+	public static void simulationPeriodic() {
+		boolean isEnabled = DriverStation.isEnabled() && !chrDrive.isRunning();
+		mSimVelocity_L = stepSimulatedSide(mSimVelocity_L, isEnabled ? getSimulatedVoltage(mDrivePower_L, mDriveVelocity_L, mSimVelocity_L) : 0.0);
+		mSimVelocity_R = stepSimulatedSide(mSimVelocity_R, isEnabled ? getSimulatedVoltage(mDrivePower_R, mDriveVelocity_R, mSimVelocity_R) : 0.0);
+		mSimDistance_L += mSimVelocity_L * CONTROL_PERIOD;
+		mSimDistance_R += mSimVelocity_R * CONTROL_PERIOD;
+
+		//The left side outrunning the right turns clockwise
+		double rate = Units.radiansToDegrees((mSimVelocity_L - mSimVelocity_R) / TRACK_WIDTH);
+		mSimHeading += rate * CONTROL_PERIOD;
+
+		if(simDrive_Angle == null) simDrive_Angle = new SimDeviceSim("Gyro:ADXRS450", SPI.Port.kOnboardCS0.value);
+		simDrive_Angle.getDouble("angle_x").set(mSimHeading);
+		simDrive_Angle.getDouble("rate_x").set(rate);
+	}
+
+	private static double getSimulatedVoltage(double power, double targetVelocity, double velocity) {
+		double volts = mIsVelocityControl
+			? ffDrive.calculate(targetVelocity, 0.0) + (VELOCITY_KP * (targetVelocity - velocity) / INCHES_PER_ROTATION)
+			: power * mBatteryVoltage;
+		return MathUtil.clamp(volts, -mBatteryVoltage, mBatteryVoltage);
+	}
+
+	private static double stepSimulatedSide(double velocity, double volts) {
+		//Friction holds the wheels still until the voltage overcomes it, and can stop them but not reverse them
+		if(velocity == 0.0 && Math.abs(volts) <= DRIVE_KS) return 0.0;
+		double friction = Math.signum(velocity != 0.0 ? velocity : volts) * DRIVE_KS;
+		double next = velocity + (((volts - friction - (DRIVE_KV * velocity)) / DRIVE_KA) * CONTROL_PERIOD);
+		return (velocity != 0.0 && Math.signum(next) != Math.signum(velocity)) ? 0.0 : next;
+	}
+
 //////////////////////////////////////////////////
 
 	/** Call regularly to update PIDs, interpret sensor input, and apply buffered values to components. */
 	public static void periodic() {
-		//Evaluate PID control
-		if(pidDrive_Distance.isEnabled()) //Override with Distance PID value
-			setDrivePower(pidDrive_Distance.calculate(getDistance()), pidDrive_Distance.calculate(getDistance()));
-		else if(pidDrive_Angle.isEnabled()) //Override with Angle PID value
-			setDrivePower(pidDrive_Angle.calculate(getAngle()), pidDrive_Angle.calculate(getAngle()));
-
-		//Apply buffer values
-		mtrDrive_L1.set(mDrivePower_L);
-		mtrDrive_R1.set(mDrivePower_R);
+		//Evaluate PID control, forward from the Distance PID and turn from the Angle PID or heading hold
+		if(isTuning()) { //Override with relay auto-tune
+			updateTuning();
+		} else if((pidDrive_Angle.isEnabled() || isFollowingTrajectory()) && !isGyroReady()) { //Hold still until the Gyro can be trusted
+			disableDrive();
+		} else if(isFollowingTrajectory()) { //Override with Ramsete wheel speeds
+			updateTrajectory();
+		} else if(pidDrive_Distance.isEnabled() || pidDrive_Angle.isEnabled()) { //Override with PID values
+			double forward = 0.0;
+			double turn = 0.0;
+
+			if(pidDrive_Distance.isEnabled()) forward = calculateDistanceOutput();
+			if(pidDrive_Angle.isEnabled()) turn = calculateAngleOutput();
+			else if(mIsHoldingHeading && isGyroReady()) turn = pidDrive_Angle.calculate(mHeading, mHoldHeading);
+
+			//Gyro angle is clockwise-positive, so a positive turn drives the left side forward and the right side back
+			setDrivePower(forward + turn, forward - turn);
+		}
+
+		//Apply buffer values, unless a characterization test has direct control of the motors
+		if(chrDrive.isRunning()) {
+			return;
+		} else if(mIsVelocityControl) {
+			mtrDrive_L1.setControl(reqVelocity_L.withVelocity(mDriveVelocity_L / INCHES_PER_ROTATION));
+			mtrDrive_R1.setControl(reqVelocity_R.withVelocity(mDriveVelocity_R / INCHES_PER_ROTATION));
+		} else {
+			mtrDrive_L1.set(mDrivePower_L);
+			mtrDrive_R1.set(mDrivePower_R);
+		}
 	}
 }
@@ -1,11 +1,28 @@
 package frc.robot.subsystem;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Utils;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.FeedbackConfigs;
+import com.ctre.phoenix6.configs.MotionMagicConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.SoftwareLimitSwitchConfigs;
+import com.ctre.phoenix6.controls.Follower;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.Timer;
+import frc.molib.dashboard.BooleanEntry;
+import frc.molib.dashboard.DoubleEntry;
+import frc.molib.utilities.Characterizer;
 import frc.molib.utilities.Console;
+import frc.molib.utilities.SampleHistory;
+import frc.robot.CANBudget;
 import frc.robot.Robot;
 
 /** Hanger Subsystem: Handles climbing during the Endgame */
@@ -14,15 +31,70 @@ public class Hanger {
     //Parent NetworkTable
     private static final NetworkTable tblHanger = Robot.tblSubsystem.getSubTable("Hanger");
 
+    //Dashboard Values
+    private static final DoubleEntry entHeight = new DoubleEntry(tblHanger, "Height");
+    private static final BooleanEntry entZeroed = new BooleanEntry(tblHanger, "Zeroed");
+
     //Motors
     private static final TalonFX mtrWinch_1 = new TalonFX(8);
     private static final TalonFX mtrWinch_2 = new TalonFX(9);
 
+    //Motor Control Requests, reused every loop
+    private static final MotionMagicVoltage reqHeight = new MotionMagicVoltage(0.0).withSlot(0);
+    private static final VoltageOut reqVoltage = new VoltageOut(0.0);
+
+    //Current Limits, reused whenever the Power Manager changes them
+    private static final CurrentLimitsConfigs cfgCurrentLimits = new CurrentLimitsConfigs();
+
+    //Soft Limits, reused whenever zeroing changes them
+    private static final SoftwareLimitSwitchConfigs cfgSoftLimits = new SoftwareLimitSwitchConfigs();
+
+    //Status Signals
+    private static final StatusSignal<Double> sigPosition = mtrWinch_1.getPosition();
+    private static final StatusSignal<Double> sigVelocity = mtrWinch_1.getVelocity();
+    private static final StatusSignal<Double> sigStatorCurrent = mtrWinch_1.getStatorCurrent();
+
+    //Characterization Signals, cloned since they are refreshed from the Characterizer's thread
+    private static final StatusSignal<Double> sigCharacterize_Position = sigPosition.clone();
+    private static final StatusSignal<Double> sigCharacterize_Velocity = sigVelocity.clone();
+
+    //Characterization, in inches, 1V/s ramp for 4s and 4V step for 1s, the soft limits still apply
+    private static final Characterizer chrWinch = new Characterizer("Winch", Hanger::setCharacterizationVoltage, Hanger::refreshCharacterization,
+        sigCharacterize_Position::getValueAsDouble, sigCharacterize_Velocity::getValueAsDouble, 1.0, 4.0, 4.0, 1.0);
+
     //Constants
-    private static final double MAX_HEIGHT = Double.POSITIVE_INFINITY;
+    private static final double WINCH_GEAR_RATIO = 1.0/25.0; //FIXME: Confirm Winch gearbox ratio
+    private static final double INCHES_PER_ROTATION = WINCH_GEAR_RATIO * (Math.PI * 1.0); //FIXME: Measure spool diameter
+    private static final double MIN_HEIGHT = 0.0;
+    private static final double MAX_HEIGHT = 24.0; //FIXME: Measure real hook travel
+    private static final double HEIGHT_TOLERANCE = 0.5;
+    private static final double MAX_WINCH_VELOCITY = 12.0; //Inches per second
+    private static final double MAX_WINCH_ACCELERATION = 48.0; //Inches per second squared
+    private static final double WINCH_KP = 1.0; //FIXME: Tune onboard position loop, Volts per inch of error
+    private static final double WINCH_KS = 0.2; //FIXME: Characterize Winch, Volts
+    private static final double WINCH_KV = 0.12 * (1.0 / INCHES_PER_ROTATION); //Motor Volts per rotation per second, in inches
+    private static final double ZEROING_POWER = -0.15; //FIXME: Confirm slow enough to stall against the hard stop safely
+    private static final double ZEROING_STALL_CURRENT = 20.0; //FIXME: Measure, stator amps once stalled at ZEROING_POWER
+    private static final double ZEROING_STALL_VELOCITY = 0.25; //Inches per second
+    private static final double ZEROING_STALL_TIME = 0.1;
+
+    //Sensor Snapshot, refreshed once per loop
+    private static double mHeight = 0.0;
+    private static double mVelocity = 0.0;
+    private static double mStatorCurrent = 0.0;
+
+    //Zeroing, the height is unknown until the hooks have been driven down against the hard stop
+    private static boolean mIsZeroed = false;
+    private static boolean mIsZeroing = false;
+    private static double mStallTime = Double.NaN;
 
-    //Power Buffer Variables
+    //Sensor History, two seconds of samples
+    private static final SampleHistory hstHeight = new SampleHistory(100);
+
+    //Power Buffer Variables, target in inches when under onboard height control
     private static double mWinchPower = 0.0;
+    private static double mHeightTarget = 0.0;
+    private static boolean mIsHeightControl = false;
 
 ////System-wide Control
 
@@ -33,28 +105,65 @@ public class Hanger {
     public static void init() {
         Console.logMsg("Hanger Subsystem Initializing...");
 
-        //Motor Inversions
+        //Motor Inversions, the second Winch motor follows and opposes the first
         mtrWinch_1.setInverted(true);
-        mtrWinch_2.setInverted(false);
 
         //Motor Neutral Mode configuration
         mtrWinch_1.setNeutralMode(NeutralModeValue.Brake);
         mtrWinch_2.setNeutralMode(NeutralModeValue.Brake);
 
-        //Sensor Reset
-        resetHeight();
+        //Motor Follower configuration
+        mtrWinch_2.setControl(new Follower(mtrWinch_1.getDeviceID(), true));
+
+        //Report position in inches of hook travel, so every onboard setting below is in inches
+        FeedbackConfigs cfgFeedback = new FeedbackConfigs();
+        cfgFeedback.SensorToMechanismRatio = 1.0 / INCHES_PER_ROTATION;
+        mtrWinch_1.getConfigurator().apply(cfgFeedback);
+
+        //Onboard soft limits, enforced by the motor controller even if the roboRIO loop stalls
+        //The reverse limit is enabled once the Hanger has been zeroed on its hard stop, the bottom is only known then
+        //FIXME: Enable the forward limit once the gear ratio, spool, and travel are measured, a wrong limit can stop the hooks short of the chain
+        cfgSoftLimits.ForwardSoftLimitEnable = false;
+        cfgSoftLimits.ForwardSoftLimitThreshold = MAX_HEIGHT;
+        cfgSoftLimits.ReverseSoftLimitEnable = false;
+        cfgSoftLimits.ReverseSoftLimitThreshold = MIN_HEIGHT;
+        mtrWinch_1.getConfigurator().apply(cfgSoftLimits);
+
+        //Onboard Motion Magic profile and position loop
+        MotionMagicConfigs cfgMotionMagic = new MotionMagicConfigs();
+        cfgMotionMagic.MotionMagicCruiseVelocity = MAX_WINCH_VELOCITY;
+        cfgMotionMagic.MotionMagicAcceleration = MAX_WINCH_ACCELERATION;
+        mtrWinch_1.getConfigurator().apply(cfgMotionMagic);
+        mtrWinch_1.getConfigurator().apply(new Slot0Configs()
+            .withKP(WINCH_KP)
+            .withKS(WINCH_KS)
+            .withKV(WINCH_KV));
+
+        //CAN Budget, rates in Hz for [Disabled, Autonomous, Teleoperated, Test]
+        CANBudget.registerDevice(mtrWinch_1);
+        CANBudget.registerDevice(mtrWinch_2);
+        CANBudget.registerSignal(sigPosition, 4.0, 20.0, 50.0, 200.0);
+        CANBudget.registerSignal(sigVelocity, 4.0, 20.0, 50.0, 200.0);
+        CANBudget.registerSignal(sigStatorCurrent, 4.0, 20.0, 50.0, 50.0);
+        CANBudget.registerSignal(sigCharacterize_Velocity, 0.0, 0.0, 0.0, 200.0);
+
+        //The follower mirrors its leader's output signals, so those must stay on
+        CANBudget.registerSignal(mtrWinch_1.getDutyCycle(), 20.0, 50.0, 100.0, 100.0);
+        CANBudget.registerSignal(mtrWinch_1.getMotorVoltage(), 20.0, 50.0, 100.0, 100.0);
 
         Console.logMsg("Hanger Initialization Complete");
     }
 
     /** Initialize Dashboard values */
     public static void initDashboard() {
-
+        entHeight.set(getHeight());
+        entZeroed.set(isZeroed());
     }
 
     /** Call regularly to push new values to Dashboard */
     public static void updateDashboard() {
-
+        entHeight.set(getHeight());
+        entZeroed.set(isZeroed());
     }
 
     /** Disable the entire subsystem */
@@ -62,20 +171,85 @@ public class Hanger {
         disableWinch();
     }
 
+    /**
+     * Limit the current each Winch motor may draw, applied without waiting so it can be called mid-match
+     * @param supplyLimit   Supply current limit in amps
+     * @param statorLimit   Stator current limit in amps
+     */
+    public static void configCurrentLimits(double supplyLimit, double statorLimit) {
+        cfgCurrentLimits.SupplyCurrentLimit = supplyLimit;
+        cfgCurrentLimits.SupplyCurrentLimitEnable = true;
+        cfgCurrentLimits.StatorCurrentLimit = statorLimit;
+        cfgCurrentLimits.StatorCurrentLimitEnable = true;
+        mtrWinch_1.getConfigurator().apply(cfgCurrentLimits, 0.0);
+        mtrWinch_2.getConfigurator().apply(cfgCurrentLimits, 0.0);
+    }
+
 //Sensors
 
+    /** Call once at the start of every loop to refresh all sensor readings together */
+    public static void updateSensors() {
+        BaseStatusSignal.refreshAll(sigPosition, sigVelocity, sigStatorCurrent);
+        double now = Timer.getFPGATimestamp();
+
+        mHeight = sigPosition.getValueAsDouble();
+        mVelocity = sigVelocity.getValueAsDouble();
+        mStatorCurrent = sigStatorCurrent.getValueAsDouble();
+        hstHeight.add(now - (Utils.getCurrentTimeSeconds() - sigPosition.getTimestamp().getTime()), mHeight);
+    }
+
     /**
      * Get the approximate height of the Hanger
-     * @return Height of the Hanger in inches
+     * @return Height of the Hanger in inches, only meaningful once {@link #isZeroed()}
      */
     public static double getHeight() {
-        //FIXME: Find real approximate conversion
-        return mtrWinch_1.getPosition().getValue();
+        return mHeight;
     }
 
-    /** Reset Winch motor position to 0.0 */
+    /**
+     * Get whether the Hanger has reached the height last requested by {@link #goToHeight(double)}
+     * @return True if within tolerance of the target height
+     */
+    public static boolean isAtHeight() {
+        return mIsHeightControl && Math.abs(getHeight() - mHeightTarget) <= HEIGHT_TOLERANCE;
+    }
+
+    /**
+     * Get whether the Hanger has been zeroed against its hard stop since startup
+     * @return True if the height can be trusted
+     */
+    public static boolean isZeroed() {
+        return mIsZeroed;
+    }
+
+    /**
+     * Reset Winch motor position to 0.0, only call with the hooks at the bottom hard stop.
+     * The height is then known, so the onboard reverse soft limit is enabled at the bottom.
+     */
     public static void resetHeight() {
         mtrWinch_1.setPosition(0.0);
+        mHeight = 0.0;
+        hstHeight.clear();
+        mIsZeroed = true;
+        setReverseSoftLimit(true);
+    }
+
+    /**
+     * Enable or disable the onboard reverse soft limit, applied without waiting so it can be called mid-match
+     * @param isEnabled Whether the Winch should refuse to retract below {@link #MIN_HEIGHT}
+     */
+    private static void setReverseSoftLimit(boolean isEnabled) {
+        cfgSoftLimits.ReverseSoftLimitEnable = isEnabled;
+        mtrWinch_1.getConfigurator().apply(cfgSoftLimits, 0.0);
+    }
+
+    /**
+     * Get the approximate height of the Hanger at a time in the recent past
+     * @param timestamp FPGA time in seconds
+     * @return Height of the Hanger in inches, interpolated between measurements
+     */
+    public static double getHeightAt(double timestamp) {
+        return hstHeight.getAt(timestamp);
     }
 
 ////Winch
@@ -85,9 +259,22 @@ public class Hanger {
      * @param power [-1.0 to 1.0]
      */
     public static void setWinchPower(double power) {
+        mIsHeightControl = false;
+        mIsZeroing = false;
         mWinchPower = power;
     }
 
+    /**
+     * Move the hooks to a height, following a Motion Magic profile run on the motor controller
+     * @param height Target height in inches, limited to the Hanger's travel. Ignored until the Hanger is zeroed.
+     */
+    public static void goToHeight(double height) {
+        if(!mIsZeroed) return;
+        mIsZeroing = false;
+        mIsHeightControl = true;
+        mHeightTarget = MathUtil.clamp(height, MIN_HEIGHT, MAX_HEIGHT);
+    }
+
     /** Turn on the Winch motors to uncoil the hooks */
     public static void extendWinch() {
         setWinchPower(0.5);
@@ -103,16 +290,81 @@ public class Hanger {
         setWinchPower(0.0);
     }
 
+////Zeroing
+
+    /**
+     * Slowly retract the hooks until they stall against the bottom hard stop, then zero the height there.
+     * Call every loop while zeroing should continue, any other Winch command abandons it.
+     */
+    public static void zeroHeight() {
+        if(mIsZeroing) return;
+        mIsHeightControl = false;
+        mIsZeroing = true;
+        mStallTime = Double.NaN;
+
+        //The old zero may be wrong, so the hooks must be free to reach the hard stop
+        setReverseSoftLimit(false);
+        Console.logMsg("Zeroing Hanger against the bottom hard stop...");
+    }
+
+    /**
+     * Get whether the Hanger is driving down to its hard stop to zero
+     * @return True if zeroing
+     */
+    public static boolean isZeroing() {
+        return mIsZeroing;
+    }
+
+    /** Zero the height once the Winch has held a stall for long enough, the hooks are then at the hard stop */
+    private static void updateZeroing() {
+        double now = Timer.getFPGATimestamp();
+        boolean isStalled = mStatorCurrent >= ZEROING_STALL_CURRENT && Math.abs(mVelocity) <= ZEROING_STALL_VELOCITY;
+        if(!isStalled) {
+            mStallTime = Double.NaN;
+        } else if(Double.isNaN(mStallTime)) {
+            mStallTime = now;
+        } else if(now - mStallTime >= ZEROING_STALL_TIME) {
+            resetHeight();
+            mIsZeroing = false;
+            mWinchPower = 0.0;
+            Console.logMsg("Hanger zeroed");
+        }
+    }
+
+////Characterization
+
+    /**
+     * Get the Winch system-identification routines, for use in the Test period
+     * @return Characterizer driving the Winch
+     */
+    public static Characterizer getCharacterizer() {
+        return chrWinch;
+    }
+
+    private static void setCharacterizationVoltage(double volts) {
+        mtrWinch_1.setControl(reqVoltage.withOutput(volts));
+    }
+
+    private static void refreshCharacterization() {
+        BaseStatusSignal.refreshAll(sigCharacterize_Position, sigCharacterize_Velocity);
+    }
+
 //////////////////////////////////////////////////
 
     /** Call regularly interpret sensor input and apply buffered values to components. */
     public static void periodic() {
-        //Sensor Safety Automation
-        if(getHeight() <= 0.0) mWinchPower = MathUtil.clamp(mWinchPower, 0.0, 1.0);
-        if(getHeight() >= MAX_HEIGHT) mWinchPower = MathUtil.clamp(mWinchPower, -1.0, 0.0);
+        //Travel limits are enforced by the Winch reverse soft limit once zeroed, this is the fallback
+        if(mIsZeroing) updateZeroing();
+        else if(mIsZeroed && mHeight <= MIN_HEIGHT) mWinchPower = MathUtil.clamp(mWinchPower, 0.0, 1.0);
 
-        //Apply Buffer values
-        mtrWinch_1.set(mWinchPower);
-        mtrWinch_2.set(mWinchPower);
+        //Apply Buffer values, unless a characterization test has direct control of the Winch
+        if(chrWinch.isRunning())
+            return;
+        else if(mIsZeroing)
+            mtrWinch_1.set(ZEROING_POWER);
+        else if(mIsHeightControl)
+            mtrWinch_1.setControl(reqHeight.withPosition(mHeightTarget));
+        else
+            mtrWinch_1.set(mWinchPower);
     }
 }
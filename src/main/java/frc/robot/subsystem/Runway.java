@@ -2,17 +2,31 @@ package frc.robot.subsystem;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.VictorSPX;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.controls.DutyCycleOut;
+import com.ctre.phoenix6.controls.NeutralOut;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
-import frc.molib.dashboard.Entry;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import frc.molib.dashboard.BooleanEntry;
 import frc.molib.lights.DigitalLight;
 import frc.molib.sensors.DigitalInput;
+import frc.molib.utilities.Characterizer;
 import frc.molib.utilities.Console;
+import frc.robot.CANBudget;
 import frc.robot.Robot;
 
 /** Runway Subsystem: Handles transport of and scoring game pieces */
@@ -21,23 +35,83 @@ public class Runway {
     private static final NetworkTable tblRunway = Robot.tblSubsystem.getSubTable("Runway");
 
     //Dashboard Values
-    private static final Entry<Boolean> entLoaded = new Entry<>(tblRunway, "Loaded");
+    private static final BooleanEntry entLoaded = new BooleanEntry(tblRunway, "Loaded");
+    private static final BooleanEntry entAtShotSpeed = new BooleanEntry(tblRunway, "At Shot Speed");
 
     //Motors
     private static final VictorSPX mtrDirector = new VictorSPX(5);
     private static final TalonFX mtrReel_T = new TalonFX(6);
     private static final TalonFX mtrReel_B = new TalonFX(7);
 
+    //Motor Control Requests, reused every loop
+    private static final VelocityVoltage reqVelocity_T = new VelocityVoltage(0.0).withSlot(0);
+    private static final VelocityVoltage reqVelocity_B = new VelocityVoltage(0.0).withSlot(0);
+    private static final VoltageOut reqVoltage_T = new VoltageOut(0.0);
+    private static final VoltageOut reqVoltage_B = new VoltageOut(0.0);
+    private static final DutyCycleOut reqPower_T = new DutyCycleOut(0.0);
+    private static final DutyCycleOut reqPower_B = new DutyCycleOut(0.0);
+    private static final NeutralOut reqIntakeStop = new NeutralOut(); //Only used by the Loaded interrupt
+
+    //Held while commanding the Director and Reels, so the Loaded interrupt and periodic() never interleave
+    private static final Object mMotorLock = new Object();
+
+    //Current Limits, reused whenever the Power Manager changes them
+    private static final CurrentLimitsConfigs cfgCurrentLimits = new CurrentLimitsConfigs();
+
+    //Status Signals
+    private static final StatusSignal<Double> sigVelocity_T = mtrReel_T.getVelocity();
+    private static final StatusSignal<Double> sigVelocity_B = mtrReel_B.getVelocity();
+
+    //Characterization Signals, cloned since they are refreshed from the Characterizer's thread
+    private static final StatusSignal<Double> sigCharacterize_Position_T = mtrReel_T.getPosition().clone();
+    private static final StatusSignal<Double> sigCharacterize_Position_B = mtrReel_B.getPosition().clone();
+    private static final StatusSignal<Double> sigCharacterize_Velocity_T = sigVelocity_T.clone();
+    private static final StatusSignal<Double> sigCharacterize_Velocity_B = sigVelocity_B.clone();
+
+    //Characterization, in rotations, 1V/s ramp for 10s and 10V step for 3s
+    private static final Characterizer chrReels = new Characterizer("Reels", Runway::setCharacterizationVoltage, Runway::refreshCharacterization,
+        Runway::getCharacterizationPosition, Runway::getCharacterizationVelocity, 1.0, 10.0, 10.0, 3.0);
+
     //Sensors
     private static final DigitalInput bmpLoaded = new DigitalInput(0, false);
 
     //LEDs
     private static final DigitalLight ledIndicator = new DigitalLight(PneumaticsModuleType.CTREPCM, 0);
 
-    //Power Buffer Variables
-    private static double mReelPower_T = 0.0;
-    private static double mReelPower_B = 0.0;
-    private static double mDirectorPower = 0.0;
+    //Constants
+    private static final double LOADED_DEBOUNCE = 0.0005;
+    private static final double SPEAKER_VELOCITY_T = 4500.0; //RPM
+    private static final double SPEAKER_VELOCITY_B = 5100.0; //RPM
+    private static final double AMP_VELOCITY_T = 900.0; //RPM
+    private static final double AMP_VELOCITY_B = 1200.0; //RPM
+    private static final double SHOT_SPEED_TOLERANCE = 150.0; //RPM
+    private static final double SHOT_SPEED_DWELL = 0.06; //Seconds the Reels must hold speed before firing
+    private static final double REEL_KP = 0.11; //FIXME: Tune onboard velocity loop, Volts per rotation per second of error
+    private static final double REEL_KS = 0.25; //FIXME: Characterize Reels, Volts
+    private static final double REEL_KV = 0.12; //FIXME: Characterize Reels, Volts per rotation per second
+    private static final double SIM_REEL_KA = 0.02; //Volts per rotation per second squared, only used by the simulated Reels
+    private static final double SIM_PERIOD = 0.02;
+    private static final boolean IS_SIMULATION = RobotBase.isSimulation();
+
+    //Sensor Snapshot, refreshed once per loop
+    private static boolean mIsLoaded = false;
+    private static volatile boolean mWasLoadedSinceSnapshot = false;
+    private static double mReelVelocity_T = 0.0;
+    private static double mReelVelocity_B = 0.0;
+    private static boolean mIsAtShotSpeed = false;
+    private static double mAtShotSpeedTime = Double.NaN;
+
+    //Power Buffer Variables, also read by the Loaded interrupt
+    private static volatile double mReelPower_T = 0.0;
+    private static volatile double mReelPower_B = 0.0;
+    private static volatile double mDirectorPower = 0.0;
+    private static double mReelTarget_T = 0.0;
+    private static double mReelTarget_B = 0.0;
+    private static boolean mIsReelVelocityControl = false;
+
+    //Simulated Reels, standing in for the motors off-robot, in rotations per second
+    private static double mSimReelVelocity_T = 0.0;
+    private static double mSimReelVelocity_B = 0.0;
 
 ////System-wide Control
 
@@ -58,17 +132,44 @@ public class Runway {
         mtrReel_T.setNeutralMode(NeutralModeValue.Coast);
         mtrReel_B.setNeutralMode(NeutralModeValue.Coast);
 
+        //Onboard velocity loop for the Reels
+        Slot0Configs cfgVelocity = new Slot0Configs()
+            .withKP(REEL_KP)
+            .withKS(REEL_KS)
+            .withKV(REEL_KV);
+        mtrReel_T.getConfigurator().apply(cfgVelocity);
+        mtrReel_B.getConfigurator().apply(cfgVelocity);
+
+        //Stop intaking the moment a game piece reaches the switch, rather than on the next loop
+        bmpLoaded.configDebounce(LOADED_DEBOUNCE);
+        bmpLoaded.configInterrupt(Runway::stopIntake, null);
+
+        //CAN Budget, rates in Hz / periods in ms for [Disabled, Autonomous, Teleoperated, Test]
+        CANBudget.registerDevice(mtrReel_T);
+        CANBudget.registerDevice(mtrReel_B);
+        CANBudget.registerSignal(sigVelocity_T, 4.0, 50.0, 50.0, 200.0);
+        CANBudget.registerSignal(sigVelocity_B, 4.0, 50.0, 50.0, 200.0);
+        CANBudget.registerSignal(sigCharacterize_Position_T, 0.0, 0.0, 0.0, 200.0);
+        CANBudget.registerSignal(sigCharacterize_Position_B, 0.0, 0.0, 0.0, 200.0);
+
+        //Nothing is read back from the Director
+        CANBudget.registerFrame(mtrDirector, StatusFrame.Status_1_General, 255, 100, 100, 20);
+        CANBudget.registerFrame(mtrDirector, StatusFrame.Status_2_Feedback0, 255, 255, 255, 255);
+        CANBudget.registerFrame(mtrDirector, StatusFrame.Status_4_AinTempVbat, 255, 255, 255, 255);
+
         Console.logMsg("Runway Initialization Complete");
     }
 
     /** Initialize Dashboard values */
     public static void initDashboard() {
         entLoaded.set(isLoaded());
+        entAtShotSpeed.set(isAtShotSpeed());
     }
 
     /** Call regularly to push new values to Dashboard */
     public static void updateDashboard() {
         entLoaded.set(isLoaded());
+        entAtShotSpeed.set(isAtShotSpeed());
     }
 
     /** Disable the entire subsystem */
@@ -78,14 +179,104 @@ public class Runway {
         disableLEDs();
     }
 
+    /**
+     * Limit the current each Reel motor may draw, applied without waiting so it can be called mid-match
+     * @param supplyLimit   Supply current limit in amps
+     * @param statorLimit   Stator current limit in amps
+     */
+    public static void configCurrentLimits(double supplyLimit, double statorLimit) {
+        cfgCurrentLimits.SupplyCurrentLimit = supplyLimit;
+        cfgCurrentLimits.SupplyCurrentLimitEnable = true;
+        cfgCurrentLimits.StatorCurrentLimit = statorLimit;
+        cfgCurrentLimits.StatorCurrentLimitEnable = true;
+        mtrReel_T.getConfigurator().apply(cfgCurrentLimits, 0.0);
+        mtrReel_B.getConfigurator().apply(cfgCurrentLimits, 0.0);
+    }
+
 ////Sensors
 
+    /** Call once at the start of every loop to refresh all sensor readings together */
+    public static void updateSensors() {
+        BaseStatusSignal.refreshAll(sigVelocity_T, sigVelocity_B);
+
+        synchronized(mMotorLock) {
+            mIsLoaded = bmpLoaded.get() || mWasLoadedSinceSnapshot;
+            mWasLoadedSinceSnapshot = false;
+        }
+        mReelVelocity_T = (IS_SIMULATION ? mSimReelVelocity_T : sigVelocity_T.getValueAsDouble()) * 60.0;
+        mReelVelocity_B = (IS_SIMULATION ? mSimReelVelocity_B : sigVelocity_B.getValueAsDouble()) * 60.0;
+
+        //Both Reels must stay within tolerance of their targets for the dwell time
+        boolean isWithinTolerance = mIsReelVelocityControl
+            && Math.abs(mReelVelocity_T - mReelTarget_T) <= SHOT_SPEED_TOLERANCE
+            && Math.abs(mReelVelocity_B - mReelTarget_B) <= SHOT_SPEED_TOLERANCE;
+        double now = Timer.getFPGATimestamp();
+        if(!isWithinTolerance) mAtShotSpeedTime = Double.NaN;
+        else if(Double.isNaN(mAtShotSpeedTime)) mAtShotSpeedTime = now;
+        mIsAtShotSpeed = isWithinTolerance && (now - mAtShotSpeedTime >= SHOT_SPEED_DWELL);
+    }
+
     /**
      * Read whether the Runway is holding a game piece
      * @return True if there is a game piece present
      */
     public static boolean isLoaded() {
-        return bmpLoaded.get();
+        return mIsLoaded;
+    }
+
+    /**
+     * Get whether both Reels have held their target speed long enough to fire
+     * @return True if ready to enable the Director
+     */
+    public static boolean isAtShotSpeed() {
+        return mIsAtShotSpeed;
+    }
+
+    /**
+     * Get how far the slower-to-settle Reel is from its target speed
+     * @return Largest Reel speed error in RPM, 0.0 when the Reels aren't under velocity control
+     */
+    public static double getShotSpeedError() {
+        if(!mIsReelVelocityControl) return 0.0;
+        return Math.max(Math.abs(mReelTarget_T - mReelVelocity_T), Math.abs(mReelTarget_B - mReelVelocity_B));
+    }
+
+    /**
+     * Get the time the last game piece reached the Loaded switch
+     * @return FPGA time in seconds
+     */
+    public static double getLoadedTimestamp() {
+        return bmpLoaded.getActivatedTimestamp();
+    }
+
+    /**
+     * Called from the Loaded interrupt thread. Cuts the Director and Reels if they are intaking,
+     * without waiting for periodic() to apply the buffered values. Uses its own control request,
+     * and holds the motor lock so it can't interleave with periodic() commanding the same devices.
+     */
+    private static void stopIntake() {
+        synchronized(mMotorLock) {
+            mWasLoadedSinceSnapshot = true;
+            if(mDirectorPower < 0.0) mtrDirector.set(ControlMode.PercentOutput, 0.0);
+            if(mReelPower_T < 0.0) mtrReel_T.setControl(reqIntakeStop);
+            if(mReelPower_B < 0.0) mtrReel_B.setControl(reqIntakeStop);
+        }
+    }
+
+    /**
+     * Get the speed of the top Reel
+     * @return Reel speed in RPM
+     */
+    public static double getReelVelocity_T() {
+        return mReelVelocity_T;
+    }
+
+    /**
+     * Get the speed of the bottom Reel
+     * @return Reel speed in RPM
+     */
+    public static double getReelVelocity_B() {
+        return mReelVelocity_B;
     }
 
 ////Director
@@ -121,6 +312,7 @@ public class Runway {
      * @param powerBottom   [-1.0 to 1.0] Power to the bottom Reel motor
      */
     public static void setReelPower(double powerTop, double powerBottom) {
+        mIsReelVelocityControl = false;
         mReelPower_T = powerTop;
         mReelPower_B = powerBottom;
     }
@@ -133,14 +325,27 @@ public class Runway {
         setReelPower(power, power);
     }
     
-    /** Turn on the Reels at the preset powers for our Speaker Shot */
+    /**
+     * Hold the Reel motors at individual speeds, using the motor controllers' onboard velocity loop
+     * @param velocityTop       Speed of the top Reel in RPM
+     * @param velocityBottom    Speed of the bottom Reel in RPM
+     */
+    public static void setReelVelocity(double velocityTop, double velocityBottom) {
+        mIsReelVelocityControl = true;
+        mReelPower_T = 0.0;
+        mReelPower_B = 0.0;
+        mReelTarget_T = velocityTop;
+        mReelTarget_B = velocityBottom;
+    }
+
+    /** Turn on the Reels at the preset speeds for our Speaker Shot */
     public static void enableReels_Speaker() {
-        setReelPower(0.75, 0.85);
+        setReelVelocity(SPEAKER_VELOCITY_T, SPEAKER_VELOCITY_B);
     }
 
-    /** Turn on the Reels at the preset powers for our Amp Shot */
+    /** Turn on the Reels at the preset speeds for our Amp Shot */
     public static void enableReels_Amp() {
-        setReelPower(0.15, 0.20);
+        setReelVelocity(AMP_VELOCITY_T, AMP_VELOCITY_B);
     }
 
     /** Trun on the Reels in reverse */
@@ -165,16 +370,83 @@ public class Runway {
         ledIndicator.turnOff();
     }
 
+////Characterization
+
+    /**
+     * Get the Reel system-identification routines, for use in the Test period
+     * @return Characterizer driving both Reels together
+     */
+    public static Characterizer getCharacterizer() {
+        return chrReels;
+    }
+
+    private static void setCharacterizationVoltage(double volts) {
+        mtrReel_T.setControl(reqVoltage_T.withOutput(volts));
+        mtrReel_B.setControl(reqVoltage_B.withOutput(volts));
+    }
+
+    private static void refreshCharacterization() {
+        BaseStatusSignal.refreshAll(sigCharacterize_Position_T, sigCharacterize_Position_B, sigCharacterize_Velocity_T, sigCharacterize_Velocity_B);
+    }
+
+    private static double getCharacterizationPosition() {
+        return (sigCharacterize_Position_T.getValueAsDouble() + sigCharacterize_Position_B.getValueAsDouble()) / 2.0;
+    }
+
+    private static double getCharacterizationVelocity() {
+        return (sigCharacterize_Velocity_T.getValueAsDouble() + sigCharacterize_Velocity_B.getValueAsDouble()) / 2.0;
+    }
+
+////Simulation
+
+    /**
+     * Call once every loop in simulation to spin the simulated Reels from the buffered outputs.
+     * Phoenix simulation runs on its own real-time clock, so the model feeds the sensor snapshot directly
+     * and the Robot can be stepped faster than real time.
+     */
+    public static void simulationPeriodic() {
+        boolean isEnabled = DriverStation.isEnabled();
+        mSimReelVelocity_T = stepSimulatedReel(mSimReelVelocity_T, isEnabled ? getSimulatedVoltage(mReelPower_T, mReelTarget_T / 60.0, mSimReelVelocity_T) : 0.0);
+        mSimReelVelocity_B = stepSimulatedReel(mSimReelVelocity_B, isEnabled ? getSimulatedVoltage(mReelPower_B, mReelTarget_B / 60.0, mSimReelVelocity_B) : 0.0);
+    }
+
+    private static double getSimulatedVoltage(double power, double target, double velocity) {
+        double volts = mIsReelVelocityControl
+            ? (Math.signum(target) * REEL_KS) + (REEL_KV * target) + (REEL_KP * (target - velocity))
+            : power * 12.0;
+        return MathUtil.clamp(volts, -12.0, 12.0);
+    }
+
+    private static double stepSimulatedReel(double velocity, double volts) {
+        //Friction holds the Reels still until the voltage overcomes it, and can stop them but not reverse them
+        if(velocity == 0.0 && Math.abs(volts) <= REEL_KS) return 0.0;
+        double friction = Math.signum(velocity != 0.0 ? velocity : volts) * REEL_KS;
+        double next = velocity + (((volts - friction - (REEL_KV * velocity)) / SIM_REEL_KA) * SIM_PERIOD);
+        return (velocity != 0.0 && Math.signum(next) != Math.signum(velocity)) ? 0.0 : next;
+    }
+
 //////////////////////////////////////////////////
 
 	/** Call regularly to interpret sensor input, and apply buffered values to components. */
     public static void periodic() {
-        //Sensor Saftey Automation
-        if(isLoaded()) setDirectorPower(MathUtil.clamp(mDirectorPower, 0.0, 1.0));
-
-        //Apply Buffer values
-        mtrDirector.set(ControlMode.PercentOutput, mDirectorPower);
-        mtrReel_T.set(mReelPower_T);
-        mtrReel_B.set(mReelPower_B);
+        synchronized(mMotorLock) {
+            //Sensor Saftey Automation, includes a game piece that arrived after the snapshot was taken
+            if(isLoaded() || mWasLoadedSinceSnapshot) {
+                setDirectorPower(MathUtil.clamp(mDirectorPower, 0.0, 1.0));
+                if(!mIsReelVelocityControl) setReelPower(MathUtil.clamp(mReelPower_T, 0.0, 1.0), MathUtil.clamp(mReelPower_B, 0.0, 1.0));
+            }
+
+            //Apply Buffer values
+            mtrDirector.set(ControlMode.PercentOutput, mDirectorPower);
+            if(chrReels.isRunning()) {
+                return; //Characterization has direct control of the Reels
+            } else if(mIsReelVelocityControl) {
+                mtrReel_T.setControl(reqVelocity_T.withVelocity(mReelTarget_T / 60.0));
+                mtrReel_B.setControl(reqVelocity_B.withVelocity(mReelTarget_B / 60.0));
+            } else {
+                mtrReel_T.setControl(reqPower_T.withOutput(mReelPower_T));
+                mtrReel_B.setControl(reqPower_B.withOutput(mReelPower_B));
+            }
+        }
     }
 }
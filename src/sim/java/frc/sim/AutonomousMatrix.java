@@ -0,0 +1,171 @@
+package frc.sim;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.molib.auto.Routine;
+import frc.molib.auto.RoutineRunner;
+import frc.robot.Robot;
+import frc.robot.period.Autonomous;
+import frc.robot.subsystem.Chassis;
+
+/**
+ * Runs every Autonomous selection headless, in simulated time far faster than real time.
+ * <p>The Robot is stepped one loop at a time, first disabled so it plans the routine the same way it would
+ * before a match, then through Autonomous, for every Sequence, Starting Position, and Start Delay offered on
+ * the Dashboard and both alliances. Each routine's completion time, the steps that ended on their timeout
+ * rather than their end condition, and the final pose are reported.</p>
+ * <p>The run fails if any routine doesn't finish within the Autonomous period without a Start Delay. A longer
+ * delay is the drive team's choice to give up the end of a routine, so selections only pushed past the period
+ * by their delay are reported as OVER, with the longest delay that would still fit, and don't fail the run.</p>
+ * <p>The simulated Chassis and Reels use the same FIXME feedforward constants as their controllers, so these times
+ * only show the routines are consistent with those constants, not how long they take on the real robot.</p>
+ */
+public class AutonomousMatrix {
+	//Constants
+	private static final double LOOP_PERIOD = 0.02;
+	private static final double AUTONOMOUS_TIME = 15.0;
+	private static final double OVERRUN_TIME = 5.0; //Extra time for a routine past the period, so its real length is reported
+	private static final double SETTLE_TIME = 1.0; //Disabled time between runs to coast to a stop and plan the next routine
+	private static final double GYRO_STARTUP_TIMEOUT = 5.0; //Real time to wait for the Gyro
+	private static final String[] CHOOSER_KEYS = { "Sequence", "Starting Position", "Start Delay" };
+	private static final AllianceStationID[] ALLIANCES = { AllianceStationID.Blue1, AllianceStationID.Red1 };
+
+	//Autonomous choosers, as a Dashboard sees them
+	private static final NetworkTable tblAutonomous = Robot.tblPeriod.getSubTable("Autonomous");
+
+	private static Thread thdRobot;
+
+	/** Result of running one selection */
+	private static enum Result { PASS, OVER, FAIL, SKIP }
+
+	/** Private constructor to prevent individual instances from being created */
+	private AutonomousMatrix() {}
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.println("Autonomous matrix: simulated plants share the controllers' uncharacterized (FIXME) feedforward constants,");
+		System.out.println("times are only as accurate as those constants");
+		System.out.println();
+
+		if(!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the simulated HAL");
+		SimHooks.pauseTiming();
+		DriverStationSim.setDsAttached(true);
+		DriverStationSim.setEnabled(false);
+		DriverStationSim.notifyNewData();
+
+		Robot robot = new Robot();
+		thdRobot = new Thread(robot::startCompetition, "Robot");
+		thdRobot.setDaemon(true);
+		thdRobot.start();
+		SimHooks.waitForProgramStart();
+
+		//The Gyro starts up in a background thread, on real time
+		for(int wait = 0; !Chassis.isGyroReady(); wait++) {
+			if(wait * 0.01 > GYRO_STARTUP_TIMEOUT) throw new IllegalStateException("Simulated Gyro never became ready");
+			Thread.sleep(10);
+		}
+
+		//Publish the choosers, as a Dashboard connecting would, and read back every option they offer
+		Autonomous.initDashboard();
+		step(SETTLE_TIME);
+		String[][] options = new String[CHOOSER_KEYS.length][];
+		for(int index = 0; index < CHOOSER_KEYS.length; index++) {
+			options[index] = tblAutonomous.getSubTable(CHOOSER_KEYS[index]).getEntry("options").getStringArray(new String[0]);
+			if(options[index].length == 0) throw new IllegalStateException("Chooser \"" + CHOOSER_KEYS[index] + "\" has no options");
+		}
+
+		int runCount = 0;
+		int overCount = 0;
+		int failureCount = 0;
+		for(String sequence : options[0])
+			for(String position : options[1])
+				for(String delay : options[2])
+					for(AllianceStationID alliance : ALLIANCES) {
+						runCount++;
+						switch(run(sequence, position, delay, alliance)) {
+							case OVER: overCount++; break;
+							case FAIL: failureCount++; break;
+							default: break;
+						}
+					}
+
+		System.out.println();
+		System.out.println("Autonomous matrix: " + runCount + " selections, " + failureCount + " over the " + AUTONOMOUS_TIME + "s period, "
+			+ overCount + " only over because of their Start Delay");
+		System.exit(failureCount > 0 ? 1 : 0);
+	}
+
+	/**
+	 * Select, plan, and run one Autonomous routine
+	 * @param sequence	Sequence option
+	 * @param position	Starting Position option
+	 * @param delay		Start Delay option
+	 * @param alliance	Driver Station to run from
+	 * @return Whether the routine finished within the Autonomous period, or only missed it because of its Start Delay
+	 */
+	private static Result run(String sequence, String position, String delay, AllianceStationID alliance) {
+		String selection = sequence + " | " + position + " | " + delay + " | " + alliance;
+
+		//Select while disabled, so the plan is compiled the same way it is before a match
+		DriverStationSim.setEnabled(false);
+		DriverStationSim.setAutonomous(true);
+		DriverStationSim.setAllianceStationId(alliance);
+		DriverStationSim.notifyNewData();
+		select(CHOOSER_KEYS[0], sequence);
+		select(CHOOSER_KEYS[1], position);
+		select(CHOOSER_KEYS[2], delay);
+		step(SETTLE_TIME);
+		Chassis.resetPose(new Pose2d());
+
+		DriverStationSim.setEnabled(true);
+		DriverStationSim.notifyNewData();
+		step(LOOP_PERIOD);
+
+		RoutineRunner runner = Autonomous.getRoutineRunner();
+		Routine routine = runner.getRoutine();
+		if(routine == null) {
+			System.out.println(String.format("%-6s %7s  %s", Result.SKIP, "-", selection + " (no routine for this position)"));
+			return Result.SKIP;
+		}
+
+		for(double time = LOOP_PERIOD; Double.isNaN(runner.getCompletionTime()) && time < AUTONOMOUS_TIME + OVERRUN_TIME; time += LOOP_PERIOD)
+			step(LOOP_PERIOD);
+
+		double completionTime = runner.getCompletionTime();
+		double startDelay = Autonomous.getPlannedStartDelay();
+		Result result;
+		if(completionTime <= AUTONOMOUS_TIME) result = Result.PASS;
+		else if(startDelay > 0.0) result = Result.OVER;
+		else result = Result.FAIL;
+
+		StringBuilder timeouts = new StringBuilder();
+		for(int index = 0; index < runner.getStageCount(); index++)
+			if(runner.isStageTimedOut(index)) timeouts.append(timeouts.length() == 0 ? "" : ", ").append(index + 1).append(" ").append(runner.getStage(index));
+
+		Pose2d pose = Chassis.getPose();
+		System.out.println(String.format("%-6s %7s  %s", result, Double.isNaN(completionTime) ? ">" + (AUTONOMOUS_TIME + OVERRUN_TIME) : String.format("%.2fs", completionTime), selection));
+		System.out.println(String.format("%16s%s", "", "\"" + routine.getName() + "\", final pose (" + String.format("%.2fm, %.2fm, %.0f°", pose.getX(), pose.getY(), pose.getRotation().getDegrees()) + ")"
+			+ (timeouts.length() > 0 ? ", timed out: " + timeouts : "")));
+		if(result == Result.OVER && !Double.isNaN(completionTime))
+			System.out.println(String.format("%16s%s", "", String.format("longest Start Delay that fits: %.2fs", Math.max(startDelay - (completionTime - AUTONOMOUS_TIME), 0.0))));
+		return result;
+	}
+
+	private static void select(String key, String option) {
+		tblAutonomous.getSubTable(key).getEntry("selected").setString(option);
+	}
+
+	/**
+	 * Advance simulated time, running every Robot loop that falls within it
+	 * @param time Time in seconds
+	 */
+	private static void step(double time) {
+		for(double elapsed = 0.0; elapsed < time - 1e-9; elapsed += LOOP_PERIOD) {
+			if(!thdRobot.isAlive()) throw new IllegalStateException("Robot loop stopped");
+			SimHooks.stepTiming(LOOP_PERIOD);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package frc.robot.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Parsing and validation of routine files, without compiling them into steps or loading any trajectories */
+class RoutineFileTest {
+	private static final String KNOWN_PATH = "SpeakerWall_Source";
+
+	private static RoutineFile parse(String... lines) {
+		return RoutineFile.parse("test", List.of(lines), KNOWN_PATH::equals);
+	}
+
+	/** Parse lines expected to be rejected, and check the message names the line and problem */
+	private static void assertRejected(String expectedMessage, String... lines) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> parse(lines));
+		assertTrue(e.getMessage().contains(expectedMessage), "Expected \"" + expectedMessage + "\" in \"" + e.getMessage() + "\"");
+	}
+
+	@Test
+	void parsesValidFile() {
+		RoutineFile file = parse(
+			"# Comment",
+			"sequence custom",
+			"",
+			"parallel",
+			"    delay start",
+			"    spinup speaker 1.0  # Trailing comment",
+			"end",
+			"fire 0.25",
+			"race 2.0",
+			"    drive 96 4.0",
+			"    delay 1.5",
+			"end",
+			"turn -150 1.0",
+			"pose SpeakerWall_Source",
+			"path SpeakerWall_Source 1.0",
+			"stop");
+
+		assertEquals("test", file.getName());
+		assertEquals("CUSTOM", file.getSequence());
+		assertNull(file.getPosition());
+	}
+
+	@Test
+	void parsesPosition() {
+		assertEquals("SPEAKER_WALL", parse("sequence CUSTOM", "position speaker_wall", "stop").getPosition());
+	}
+
+	@Test
+	void rejectsBadArity() {
+		assertRejected("line 2: \"drive\" takes 2 arguments, found 1", "sequence CUSTOM", "drive 48");
+		assertRejected("line 2: \"fire\" takes 1 argument, found 2", "sequence CUSTOM", "fire 0.25 1.0");
+		assertRejected("line 2: \"stop\" takes 0 arguments, found 1", "sequence CUSTOM", "stop now");
+		assertRejected("line 1: \"sequence\" takes 1 argument, found 0", "sequence");
+		assertRejected("line 2: \"race\" takes 1 argument, found 2", "sequence CUSTOM", "race 1.0 2.0", "stop", "end");
+	}
+
+	@Test
+	void rejectsUnclosedGroup() {
+		assertRejected("line 2: group is missing its \"end\"", "sequence CUSTOM", "parallel", "stop");
+	}
+
+	@Test
+	void rejectsMismatchedGroups() {
+		assertRejected("line 2: \"end\" without a parallel or race group", "sequence CUSTOM", "end");
+		assertRejected("line 3: empty group", "sequence CUSTOM", "race", "end");
+		assertRejected("line 3: \"parallel\" can't be inside a parallel or race group", "sequence CUSTOM", "race", "parallel", "end", "end");
+	}
+
+	@Test
+	void rejectsOutOfRangeTimes() {
+		assertRejected("line 2: time 20s is outside of Autonomous [0 to 15]", "sequence CUSTOM", "fire 20");
+		assertRejected("line 2: time -1s is outside of Autonomous [0 to 15]", "sequence CUSTOM", "delay -1");
+		assertRejected("line 2: time 16s is outside of Autonomous [0 to 15]", "sequence CUSTOM", "parallel 16", "stop", "end");
+		assertRejected("line 2: \"soon\" is not a number", "sequence CUSTOM", "drive 48 soon");
+		assertRejected("line 2: \"NaN\" is not a number", "sequence CUSTOM", "turn NaN 1.0");
+	}
+
+	@Test
+	void rejectsUnknownTrajectories() {
+		assertRejected("line 2: unknown trajectory \"Nowhere\"", "sequence CUSTOM", "path Nowhere 1.0");
+		assertRejected("line 2: unknown trajectory \"Nowhere\"", "sequence CUSTOM", "pose Nowhere");
+	}
+
+	@Test
+	void rejectsIncompleteFiles() {
+		assertRejected("unknown step \"jump\"", "sequence CUSTOM", "jump");
+		assertRejected("unknown shot \"trap\"", "sequence CUSTOM", "spinup trap 1.0");
+		assertRejected("missing \"sequence\" line", "stop");
+		assertRejected("no steps", "sequence CUSTOM");
+	}
+}
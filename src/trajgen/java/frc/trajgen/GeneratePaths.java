@@ -0,0 +1,86 @@
+package frc.trajgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.math.trajectory.constraint.CentripetalAccelerationConstraint;
+import edu.wpi.first.math.util.Units;
+import frc.molib.auto.TimedPath;
+
+/**
+ * Build-time trajectory generator, run by the <code>generateTrajectories</code> Gradle task.
+ * <p>Generates every autonomous trajectory into the deploy directory as {@link TimedPath} files,
+ * so the robot never spends time generating splines. Poses are field meters on the Blue alliance.</p>
+ */
+public class GeneratePaths {
+	//Constants, kept under the Chassis motion profile limits
+	private static final double TRACK_WIDTH = Units.inchesToMeters(22.0); //FIXME: Measure real track width
+	private static final double MAX_VELOCITY = 3.0; //Meters per second
+	private static final double MAX_ACCELERATION = 2.5; //Meters per second squared
+	private static final double MAX_CENTRIPETAL_ACCELERATION = 2.0; //Meters per second squared, below where the wheels slip
+
+	/** Private constructor to prevent individual instances from being created */
+	private GeneratePaths() {}
+
+	/**
+	 * Generate every trajectory
+	 * @param args Output directory
+	 * @throws IOException If a trajectory can't be written
+	 */
+	public static void main(String[] args) throws IOException {
+		File directory = new File(args[0]);
+		directory.mkdirs();
+
+		//FIXME: Measure starting poses on the field
+		generate(directory, "StationWall_Travel", false,
+			new Pose2d(0.50, 1.50, Rotation2d.fromDegrees(0.0)),
+			List.of(),
+			new Pose2d(3.00, 1.50, Rotation2d.fromDegrees(0.0)));
+		generate(directory, "SpeakerCenter_Travel", false,
+			new Pose2d(1.35, 5.55, Rotation2d.fromDegrees(0.0)),
+			List.of(),
+			new Pose2d(2.60, 5.55, Rotation2d.fromDegrees(0.0)));
+		generate(directory, "SpeakerWall_CrossField", false,
+			new Pose2d(0.75, 4.40, Rotation2d.fromDegrees(-60.0)),
+			List.of(new Translation2d(2.00, 2.20)),
+			new Pose2d(5.50, 0.75, Rotation2d.fromDegrees(0.0)));
+	}
+
+	private static void generate(File directory, String name, boolean isReversed, Pose2d start, List<Translation2d> waypoints, Pose2d end) throws IOException {
+		TrajectoryConfig config = new TrajectoryConfig(MAX_VELOCITY, MAX_ACCELERATION)
+			.setKinematics(new DifferentialDriveKinematics(TRACK_WIDTH))
+			.addConstraint(new CentripetalAccelerationConstraint(MAX_CENTRIPETAL_ACCELERATION))
+			.setReversed(isReversed);
+		List<Trajectory.State> states = TrajectoryGenerator.generateTrajectory(start, waypoints, end, config).getStates();
+
+		int count = states.size();
+		double[] time = new double[count];
+		double[] velocity = new double[count];
+		double[] acceleration = new double[count];
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] heading = new double[count];
+		double[] curvature = new double[count];
+		for(int index = 0; index < count; index++) {
+			Trajectory.State state = states.get(index);
+			time[index] = state.timeSeconds;
+			velocity[index] = state.velocityMetersPerSecond;
+			acceleration[index] = state.accelerationMetersPerSecondSq;
+			x[index] = state.poseMeters.getX();
+			y[index] = state.poseMeters.getY();
+			heading[index] = state.poseMeters.getRotation().getRadians();
+			curvature[index] = state.curvatureRadPerMeter;
+		}
+
+		new TimedPath(name, time, velocity, acceleration, x, y, heading, curvature).write(new File(directory, name + TimedPath.EXTENSION));
+		System.out.println("Generated " + name + ": " + count + " states, " + String.format("%.2f", time[count - 1]) + "s");
+	}
+}